@@ -0,0 +1,70 @@
+// Teste de carga dos scanners (k6): cada VU é um scanner que registra a entrada
+// de uma etiqueta e, em seguida, a saída. Mede vazão (http_reqs/s) e latência
+// com N conexões simultâneas — use para comparar VIRTUAL_THREADS=false x true.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=1000 -e DURATION=2m loadtest/scanner-load.js
+//
+// Variáveis: BASE_URL, VUS (padrão 1000), DURATION (padrão 1m),
+//            USERNAME/PASSWORD (padrão admin/admin), BUFFER (padrão RTS)
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const BUFFER = __ENV.BUFFER || 'RTS';
+const RUN_ID = Date.now().toString(36).toUpperCase();
+
+const scans = new Counter('scans');
+
+export const options = {
+    scenarios: {
+        scanners: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 1000),
+            duration: __ENV.DURATION || '1m',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        'http_req_duration{op:entry}': ['p(95)<1000'],
+        'http_req_duration{op:exit}': ['p(95)<1000'],
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(90)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const res = http.post(`${BASE_URL}/api/auth/login`, JSON.stringify({
+        username: __ENV.USERNAME || 'admin',
+        password: __ENV.PASSWORD || 'admin',
+    }), { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'login ok': (r) => r.status === 200 });
+    return { token: res.json('accessToken') };
+}
+
+export default function (data) {
+    // Tracking ID único por execução/VU/iteração (não colide com as etiquetas CG reais)
+    const trackingId = `LT${RUN_ID}-${__VU}-${__ITER}`;
+    const headers = {
+        'Content-Type': 'application/json',
+        Authorization: `Bearer ${data.token}`,
+    };
+
+    const entry = http.post(`${BASE_URL}/api/packages/entry`, JSON.stringify({
+        trackingId,
+        buffer: BUFFER,
+        rua: `${BUFFER}-${String(__VU % 20 + 1).padStart(2, '0')}`,
+        profile: 'P',
+    }), {
+        headers: { ...headers, 'Idempotency-Key': `${trackingId}-entry` },
+        tags: { op: 'entry' },
+    });
+    check(entry, { 'entrada 200': (r) => r.status === 200 });
+
+    const exit = http.post(`${BASE_URL}/api/packages/exit`, JSON.stringify({ trackingId }), {
+        headers: { ...headers, 'Idempotency-Key': `${trackingId}-exit` },
+        tags: { op: 'exit' },
+    });
+    check(exit, { 'saída 200': (r) => r.status === 200 });
+
+    scans.add(1);
+}
@@ -0,0 +1,94 @@
+package com.joaopssouza.fifosystem.benchmark;
+
+import com.joaopssouza.fifosystem.FifoSystemSpringBootApplication;
+import com.joaopssouza.fifosystem.dto.PackageEntryRequest;
+import com.joaopssouza.fifosystem.service.PackageService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Aplicação completa (Spring + Flyway + PostgreSQL) compartilhada pelos benchmarks de um fork.
+ * Por padrão sobe um PostgreSQL embutido (zonky); com -Dbenchmark.jdbc-url=... usa um banco
+ * existente (ex.: uma cópia de homologação). A fila é populada com "seedPackages" pacotes ativos.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkApp {
+
+    private static final String[] BUFFERS = {"RTS", "EHA", "SAL"};
+    private static final String[] PROFILES = {"P", "M", "G"};
+
+    @Param({"5000"})
+    public int seedPackages;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        String jdbcUrl = System.getProperty("benchmark.jdbc-url");
+        String username = System.getProperty("benchmark.jdbc-username", "postgres");
+        String password = System.getProperty("benchmark.jdbc-password", "postgres");
+
+        if (jdbcUrl == null) {
+            postgres = EmbeddedPostgres.builder().start();
+            jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        byte[] secret = new byte[64];
+        new SecureRandom().nextBytes(secret);
+
+        // Argumentos de linha de comando têm precedência sobre os ${...} do application.properties
+        context = new SpringApplicationBuilder(FifoSystemSpringBootApplication.class).run(
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--jwt.secret=" + Base64.getEncoder().encodeToString(secret),
+                "--jwt.expiration=3600000",
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                // Mesma configuração de persistência da produção (sem log de SQL)
+                "--spring.profiles.active=prod",
+                "--logging.level.root=WARN");
+
+        seedQueue();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        if (context != null) context.close();
+        if (postgres != null) postgres.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    // Prefixo por execução: permite rodar várias vezes contra o mesmo banco externo
+    public static String uniqueId(String prefix, long n) {
+        return prefix + "-" + Long.toString(System.nanoTime(), 36) + "-" + n;
+    }
+
+    private void seedQueue() {
+        PackageService packageService = bean(PackageService.class);
+        List<PackageEntryRequest> batch = new ArrayList<>(500);
+
+        for (int i = 0; i < seedPackages; i++) {
+            String buffer = BUFFERS[i % BUFFERS.length];
+            String profile = "SAL".equals(buffer) ? null : PROFILES[i % PROFILES.length];
+            batch.add(new PackageEntryRequest(uniqueId("SEED", i), buffer, buffer + "-0" + (i % 9 + 1), profile));
+
+            if (batch.size() == 500) {
+                packageService.registerEntryBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) packageService.registerEntryBatch(batch);
+    }
+}
@@ -0,0 +1,55 @@
+package com.joaopssouza.fifosystem.benchmark;
+
+import com.joaopssouza.fifosystem.domain.entity.ProductPackage;
+import com.joaopssouza.fifosystem.domain.repository.PackageRepository;
+import com.joaopssouza.fifosystem.service.QueueStatsEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estatísticas do dashboard: snapshot em memória (QueueStatsEngine), reconstrução pelo
+ * agregado SQL e, como referência, a varredura da fila inteira usada antes do engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DashboardStatsBenchmark {
+
+    private QueueStatsEngine queueStatsEngine;
+    private PackageRepository packageRepository;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkApp app) {
+        queueStatsEngine = app.bean(QueueStatsEngine.class);
+        packageRepository = app.bean(PackageRepository.class);
+    }
+
+    @Benchmark
+    public Map<String, Object> snapshot() {
+        return queueStatsEngine.snapshot();
+    }
+
+    @Benchmark
+    public void rebuildFromAggregate() {
+        queueStatsEngine.rebuild();
+    }
+
+    // Laço original do DashboardController.getStats (carrega todas as entidades ativas)
+    @Benchmark
+    public Map<String, Long> legacyFullScan() {
+        Map<String, Long> counts = new HashMap<>();
+        Map<String, Long> values = new HashMap<>();
+        for (ProductPackage pkg : packageRepository.findByBufferNotOrderByEntryTimestampAsc("PENDENTE")) {
+            counts.merge(pkg.getBuffer(), 1L, Long::sum);
+            values.merge(pkg.getBuffer(), (long) pkg.getProfileValue(), Long::sum);
+        }
+        counts.putAll(values);
+        return counts;
+    }
+}
@@ -0,0 +1,86 @@
+package com.joaopssouza.fifosystem.benchmark;
+
+import com.joaopssouza.fifosystem.domain.entity.Permission;
+import com.joaopssouza.fifosystem.domain.entity.Role;
+import com.joaopssouza.fifosystem.domain.entity.User;
+import com.joaopssouza.fifosystem.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geração e validação de JWT, sem banco. "cached" repete o mesmo token (caminho de um
+ * scanner autenticado); "uncached" usa um provider sem cache, forçando o HMAC a cada chamada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtTokenProvider cachedProvider;
+    private JwtTokenProvider uncachedProvider;
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        byte[] secret = new byte[64];
+        new SecureRandom().nextBytes(secret);
+        String encoded = Base64.getEncoder().encodeToString(secret);
+
+        cachedProvider = provider(encoded, 10_000);
+        uncachedProvider = provider(encoded, 0);
+
+        Permission permission = new Permission();
+        permission.setName("VIEW_DASHBOARD");
+        Role role = new Role();
+        role.setName("admin");
+        role.setPermissions(Set.of(permission));
+        user = User.builder().id(1L).username("bench").fullName("Benchmark").role(role).build();
+
+        token = cachedProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachedProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public Optional<Claims> parseClaimsCached() {
+        return cachedProvider.parseClaims(token);
+    }
+
+    @Benchmark
+    public Optional<Claims> parseClaimsUncached() {
+        return uncachedProvider.parseClaims(token);
+    }
+
+    // Fora do Spring: injeta os @Value por reflexão e chama o @PostConstruct
+    private static JwtTokenProvider provider(String secret, long cacheSize) throws Exception {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        set(provider, "jwtSecret", secret);
+        set(provider, "jwtExpirationDate", 3_600_000L);
+        set(provider, "verifiedCacheMaxSize", cacheSize);
+        Method init = JwtTokenProvider.class.getDeclaredMethod("init");
+        init.setAccessible(true);
+        init.invoke(provider);
+        return provider;
+    }
+
+    private static void set(Object target, String field, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+}
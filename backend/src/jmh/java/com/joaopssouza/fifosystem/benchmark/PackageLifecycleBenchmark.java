@@ -0,0 +1,67 @@
+package com.joaopssouza.fifosystem.benchmark;
+
+import com.joaopssouza.fifosystem.domain.entity.ProductPackage;
+import com.joaopssouza.fifosystem.dto.PackageEntryRequest;
+import com.joaopssouza.fifosystem.dto.PackageMoveDTO;
+import com.joaopssouza.fifosystem.service.PackageService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entrada, movimentação e saída de um pacote (PackageService + auditoria + eventos),
+ * medidos em vazão e em latência amostrada (percentis) contra o PostgreSQL.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PackageLifecycleBenchmark {
+
+    private static long counter;
+
+    private PackageService packageService;
+
+    // Pacote alternando entre duas ruas (registerMove)
+    private ProductPackage moving;
+    private boolean toggle;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkApp app) {
+        packageService = app.bean(PackageService.class);
+        moving = packageService.registerEntry(entry("MOVE"));
+    }
+
+    @Benchmark
+    public ProductPackage registerEntry() {
+        return packageService.registerEntry(entry("ENTRY"));
+    }
+
+    @Benchmark
+    public PackageMoveDTO registerMove() {
+        toggle = !toggle;
+        return packageService.registerMove(moving.getId(), toggle ? "RTS-02" : "RTS-01");
+    }
+
+    @Benchmark
+    public void registerExit(PendingExit pending) {
+        packageService.registerExit(pending.pkg.getId());
+    }
+
+    private static synchronized PackageEntryRequest entry(String prefix) {
+        return new PackageEntryRequest(BenchmarkApp.uniqueId(prefix, counter++), "RTS", "RTS-01", "M");
+    }
+
+    // Pacote criado antes de cada invocação de registerExit (fora da medição)
+    @State(Scope.Thread)
+    public static class PendingExit {
+        ProductPackage pkg;
+
+        @Setup(Level.Invocation)
+        public void create(BenchmarkApp app) {
+            pkg = app.bean(PackageService.class).registerEntry(entry("EXIT"));
+        }
+    }
+}
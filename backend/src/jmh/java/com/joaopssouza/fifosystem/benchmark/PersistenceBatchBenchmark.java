@@ -0,0 +1,88 @@
+package com.joaopssouza.fifosystem.benchmark;
+
+import com.joaopssouza.fifosystem.dto.BatchItemResult;
+import com.joaopssouza.fifosystem.dto.LabelConfirmResult;
+import com.joaopssouza.fifosystem.dto.PackageEntryRequest;
+import com.joaopssouza.fifosystem.service.AuditService;
+import com.joaopssouza.fifosystem.service.PackageService;
+import com.joaopssouza.fifosystem.service.QrCodeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão de INSERT por caminho de escrita (V13: IDs pooled-lo + batch JDBC). Cada operação
+ * grava "rows" linhas; compare rodando a mesma classe antes e depois da V13.
+ * - entryBatch: entidades ProductPackage via saveAll (o caminho que o IDENTITY impedia de agrupar);
+ * - confirmLabels: QrCodeService.confirmData (INSERT nativo multi-linha, referência);
+ * - auditPerAction: N logAction na mesma transação (AuditLog via JPA no modo sync);
+ * - auditBatch: logActions (JdbcTemplate.batchUpdate, reescrito em INSERT multi-linha pelo driver).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PersistenceBatchBenchmark {
+
+    private static long counter;
+
+    @Param({"100", "500"})
+    public int rows;
+
+    private PackageService packageService;
+    private QrCodeService qrCodeService;
+    private AuditService auditService;
+    private TransactionTemplate transactionTemplate;
+    private List<String> details;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkApp app) {
+        packageService = app.bean(PackageService.class);
+        qrCodeService = app.bean(QrCodeService.class);
+        auditService = app.bean(AuditService.class);
+        transactionTemplate = new TransactionTemplate(app.bean(PlatformTransactionManager.class));
+
+        details = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) details.add("Benchmark de escrita em lote #" + i);
+    }
+
+    @Benchmark
+    public List<BatchItemResult> entryBatch() {
+        List<PackageEntryRequest> requests = new ArrayList<>(rows);
+        for (String trackingId : trackingIds("BATCH")) {
+            requests.add(new PackageEntryRequest(trackingId, "RTS", "RTS-01", "M"));
+        }
+        return packageService.registerEntryBatch(requests);
+    }
+
+    @Benchmark
+    public LabelConfirmResult confirmLabels() {
+        return qrCodeService.confirmData(trackingIds("LABEL"));
+    }
+
+    @Benchmark
+    public void auditPerAction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String line : details) auditService.logAction("BENCHMARK", line);
+        });
+    }
+
+    @Benchmark
+    public void auditBatch() {
+        auditService.logActions("BENCHMARK", details);
+    }
+
+    private List<String> trackingIds(String prefix) {
+        List<String> ids = new ArrayList<>(rows);
+        synchronized (PersistenceBatchBenchmark.class) {
+            for (int i = 0; i < rows; i++) ids.add(BenchmarkApp.uniqueId(prefix, counter++));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,34 @@
+package com.joaopssouza.fifosystem.benchmark;
+
+import com.joaopssouza.fifosystem.service.QrCodeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geração de tracking IDs para etiquetas (alocador hi/lo + checagem de colisão por faixa).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QrCodeBenchmark {
+
+    @Param({"1", "100", "500"})
+    public int quantity;
+
+    private QrCodeService qrCodeService;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkApp app) {
+        qrCodeService = app.bean(QrCodeService.class);
+    }
+
+    @Benchmark
+    public List<String> generateData() {
+        return qrCodeService.generateData(quantity);
+    }
+}
@@ -0,0 +1,96 @@
+package com.joaopssouza.fifosystem.benchmark;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara dois resultados do JMH (-rf json) e falha se algum benchmark piorou de forma
+ * significativa. Usado pelo workflow de benchmarks em pull requests, contra a base do PR
+ * medida no mesmo runner:
+ *
+ *   ./mvnw -Pbenchmark exec:exec -Dbenchmark.main=com.joaopssouza.fifosystem.benchmark.RegressionCheck \
+ *       -Djmh.args="baseline/jmh-result.json target/jmh-result.json 20"
+ *
+ * Regressão = piora acima do limite (%) E intervalos de confiança do JMH (scoreConfidence,
+ * 99,9%) sem sobreposição; piora dentro do ruído da medição só aparece como "ruído".
+ * Throughput: maior é melhor; sample/avgt/ss: menor é melhor. Benchmarks que só existem de
+ * um lado (novos ou removidos) são listados, mas não reprovam.
+ */
+public final class RegressionCheck {
+
+    private record Result(String mode, double score, double low, double high, String unit) {
+
+        // Sem intervalo (uma única iteração) o JMH grava NaN: vale só o limite
+        boolean separatedFrom(Result other) {
+            if (Double.isNaN(low) || Double.isNaN(other.low)) return true;
+            return high < other.low || low > other.high;
+        }
+    }
+
+    private RegressionCheck() {}
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Uso: RegressionCheck <baseline.json> <atual.json> [limite-%]");
+            System.exit(2);
+        }
+        double thresholdPct = args.length > 2 ? Double.parseDouble(args[2]) : 20.0;
+
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NOVO       %s = %.3f %s%n", entry.getKey(), now.score(), now.unit());
+                continue;
+            }
+            // Variação em %, positiva quando melhorou
+            double change = before.score() == 0 ? 0
+                    : (now.score() - before.score()) / before.score() * 100 * (higherIsBetter(now.mode()) ? 1 : -1);
+            boolean worse = change < -thresholdPct;
+            boolean regressed = worse && now.separatedFrom(before);
+            if (regressed) regressions++;
+            System.out.printf("%-10s %s: %.3f -> %.3f %s (%+.1f%%)%n",
+                    regressed ? "REGRESSÃO" : worse ? "ruído" : "ok",
+                    entry.getKey(), before.score(), now.score(), now.unit(), change);
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.println("REMOVIDO   " + key));
+
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) piorou(aram) mais de %.0f%% em relação à base%n", regressions, thresholdPct);
+            System.exit(1);
+        }
+    }
+
+    private static boolean higherIsBetter(String mode) {
+        return "thrpt".equals(mode);
+    }
+
+    // Chave: benchmark + modo + parâmetros (@Param), ex.: "...entryBatch [thrpt] {rows=500}"
+    private static Map<String, Result> read(File file) {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : JsonMapper.builder().build().readTree(file)) {
+            String mode = run.path("mode").asString();
+            Map<String, String> params = new TreeMap<>();
+            run.path("params").properties().forEach(param -> params.put(param.getKey(), param.getValue().asString()));
+
+            String key = run.path("benchmark").asString() + " [" + mode + "]" + (params.isEmpty() ? "" : " " + params);
+            JsonNode metric = run.path("primaryMetric");
+            JsonNode confidence = metric.path("scoreConfidence");
+            results.put(key, new Result(mode, metric.path("score").asDouble(),
+                    confidence.path(0).asDouble(Double.NaN), confidence.path(1).asDouble(Double.NaN),
+                    metric.path("scoreUnit").asString()));
+        }
+        return results;
+    }
+}
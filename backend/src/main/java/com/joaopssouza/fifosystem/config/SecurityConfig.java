@@ -86,7 +86,7 @@ public class SecurityConfig {
         configuration.setAllowedHeaders(List.of("*"));
 
         // Permite expor headers se necessário (opcional, mas bom para debug)
-        configuration.setExposedHeaders(List.of("Authorization"));
+        configuration.setExposedHeaders(List.of("Authorization", "Idempotent-Replayed", "ETag", "X-Queue-Seq"));
 
         // Permite credenciais (cookies, auth headers)
         configuration.setAllowCredentials(true);
@@ -47,8 +47,9 @@ public class WebSocketConfig implements WebSocketConfigurer {
                         // --- LOGS DE DEBUG ---
                         System.out.println("WS Handshake: Validando token...");
                         
-                        if (jwtTokenProvider.validateToken(token)) {
-                            String username = jwtTokenProvider.getUsername(token);
+                        var claims = jwtTokenProvider.parseClaims(token);
+                        if (claims.isPresent()) {
+                            String username = claims.get().getSubject();
                             User user = userRepository.findByUsername(username).orElse(null);
                             if (user != null) {
                                 attributes.put("user", user);
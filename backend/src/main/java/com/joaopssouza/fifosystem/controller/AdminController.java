@@ -2,7 +2,10 @@ package com.joaopssouza.fifosystem.controller;
 
 import com.joaopssouza.fifosystem.dto.CreateUserRequest;
 import com.joaopssouza.fifosystem.dto.UserDTO;
+import com.joaopssouza.fifosystem.service.EntityCacheService;
+import com.joaopssouza.fifosystem.service.SnapshotCache;
 import com.joaopssouza.fifosystem.service.UserService;
+import com.joaopssouza.fifosystem.websocket.DashboardWebSocketHandler;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +20,28 @@ import java.util.Map;
 public class AdminController {
 
     private final UserService userService;
+    private final DashboardWebSocketHandler dashboardWebSocketHandler;
+    private final EntityCacheService entityCacheService;
+    private final SnapshotCache snapshotCache;
+
+    // Sessões do WebSocket: conectadas, bytes aguardando envio e clientes desconectados por atraso
+    @GetMapping("/websocket")
+    public Map<String, Object> getWebSocketStats() {
+        return dashboardWebSocketHandler.stats();
+    }
+
+    // Cache de segundo nível (usuários, papéis, permissões): acertos/erros por região; os contadores
+    // do Hibernate ficam zerados sem HIBERNATE_STATISTICS=true (statisticsEnabled=false)
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheStats() {
+        return entityCacheService.stats();
+    }
+
+    // Snapshots prontos dos GETs públicos: acertos, requisições coalescidas e cálculos
+    @GetMapping("/snapshots")
+    public Map<String, Object> getSnapshotStats() {
+        return snapshotCache.stats();
+    }
 
     // Apenas ADMIN pode ver usuários (Exemplo de segurança por anotação)
     // Para funcionar, adicione @EnableMethodSecurity na SecurityConfig
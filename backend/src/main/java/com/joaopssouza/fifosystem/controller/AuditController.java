@@ -2,16 +2,28 @@ package com.joaopssouza.fifosystem.controller;
 
 import com.joaopssouza.fifosystem.domain.entity.AuditLog;
 import com.joaopssouza.fifosystem.domain.repository.AuditLogRepository;
+import com.joaopssouza.fifosystem.dto.AuditLogFilter;
+import com.joaopssouza.fifosystem.service.AuditLogQueryService;
+import com.joaopssouza.fifosystem.service.AuditLogWriter;
+import com.joaopssouza.fifosystem.service.KeysetCursor;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/management/logs")
@@ -20,6 +32,91 @@ import java.util.List;
 public class AuditController {
 
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogWriter auditLogWriter;
+    private final AuditLogQueryService auditLogQueryService;
+
+    // Métricas do escritor de auditoria (fila, lotes gravados, fallbacks síncronos)
+    @GetMapping("/writer")
+    public Map<String, Object> getWriterStats() {
+        return auditLogWriter.stats();
+    }
+
+    // Paginação por cursor (created_at, id) com resposta em streaming: a tela de logs não
+    // carrega mais a tabela inteira. Texto filtra por "contém" (índices de trigramas).
+    @GetMapping("/page")
+    public ResponseEntity<StreamingResponseBody> getLogsPage(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String fullname,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String details,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        try {
+            AuditLogFilter filter = AuditLogFilter.of(username, fullname, action, details, startDate, endDate);
+            KeysetCursor after = (cursor == null || cursor.isBlank()) ? null : KeysetCursor.decode(cursor);
+            // created_at nunca é nulo: cursor sem timestamp não veio desta listagem
+            if (after != null && after.timestamp() == null) throw new IllegalArgumentException("Cursor inválido.");
+            AuditLogQueryService.checkPageSize(size);
+
+            StreamingResponseBody body = out -> auditLogQueryService.writePage(filter, after, size, out);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+    // Exportação para compliance: CSV ou NDJSON, opcionalmente em .gz, lida por cursor do banco
+    // (memória constante mesmo com milhões de linhas). Mesmos filtros da listagem.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportLogs(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String fullname,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String details,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        AuditLogFilter filter;
+        AuditLogQueryService.ExportFormat exportFormat;
+        try {
+            filter = AuditLogFilter.of(username, fullname, action, details, startDate, endDate);
+            exportFormat = AuditLogQueryService.ExportFormat.parse(format);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+
+        boolean csv = exportFormat == AuditLogQueryService.ExportFormat.CSV;
+        String filename = "audit-logs-" + LocalDate.now() + (csv ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : csv ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream gz = new GZIPOutputStream(out, 64 * 1024)) {
+                    auditLogQueryService.export(filter, exportFormat, gz);
+                }
+            } else {
+                auditLogQueryService.export(filter, exportFormat, out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    // Mesmo corpo texto dos demais 400, mas no tipo exigido pelo streaming
+    private static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
 
     @GetMapping
     public List<AuditLog> getAllLogs(
@@ -0,0 +1,72 @@
+package com.joaopssouza.fifosystem.controller;
+
+import com.joaopssouza.fifosystem.service.SnapshotCache;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * GET condicional por ETag: se o If-None-Match bate, responde 304 sem calcular o corpo.
+ * "Cache-Control: no-cache" deixa o navegador guardar a resposta e revalidar sempre
+ * (e impede o no-store que o Spring Security colocaria por padrão).
+ */
+final class ConditionalGet {
+
+    // Último seq dos deltas do WebSocket já contido no corpo (o cliente descarta os anteriores)
+    static final String QUEUE_SEQ_HEADER = "X-Queue-Seq";
+
+    private ConditionalGet() {}
+
+    /**
+     * O corpo sai pronto do SnapshotCache: bytes de JSON (ou já em gzip, se o cliente aceita)
+     * escritos direto, sem serializar por requisição. Cada codificação tem o seu ETag
+     * (sufixo -gzip), como pede o Vary: Accept-Encoding.
+     * queueSeq precisa ser lido antes do ETag (e portanto antes dos dados).
+     */
+    static ResponseEntity<byte[]> snapshot(WebRequest request, SnapshotCache cache, String resource,
+                                           long queueSeq, String etag, Supplier<?> body) {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String variantEtag = gzip ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+
+        // checkNotModified já marca o 304 e escreve o ETag na resposta
+        if (request.checkNotModified(variantEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .header(QUEUE_SEQ_HEADER, Long.toString(queueSeq))
+                    .build();
+        }
+
+        SnapshotCache.Snapshot snapshot = cache.get(resource, etag, body);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(variantEtag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .header(QUEUE_SEQ_HEADER, Long.toString(queueSeq))
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+        }
+        return response.body(snapshot.json());
+    }
+
+    // "gzip" na lista do Accept-Encoding, exceto quando recusado explicitamente (q=0)
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (!tokens[0].trim().equalsIgnoreCase("gzip")) continue;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim().replace(" ", "");
+                if (param.matches("q=0(\\.0{0,3})?")) return false;
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -1,13 +1,23 @@
 package com.joaopssouza.fifosystem.controller;
 
 import com.joaopssouza.fifosystem.domain.entity.ProductPackage;
+import com.joaopssouza.fifosystem.dto.BatchItemResult;
+import com.joaopssouza.fifosystem.dto.PackageEntryBatchRequest;
 import com.joaopssouza.fifosystem.dto.PackageEntryRequest;
+import com.joaopssouza.fifosystem.dto.PackageExitBatchRequest;
+import com.joaopssouza.fifosystem.dto.PackageMoveBatchRequest;
+import com.joaopssouza.fifosystem.dto.PackageMoveDTO;
 import com.joaopssouza.fifosystem.dto.PackageMoveRequest;
+import com.joaopssouza.fifosystem.service.IdempotencyService;
 import com.joaopssouza.fifosystem.service.PackageService;
+import com.joaopssouza.fifosystem.service.QueueVersion;
+import com.joaopssouza.fifosystem.service.SnapshotCache;
+import com.joaopssouza.fifosystem.websocket.QueueEventBroadcaster;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -19,57 +29,146 @@ public class PackageController {
 
     private final PackageService packageService;
     // Removemos WebSocketHandler e DashboardController daqui
+    private final IdempotencyService idempotencyService; // Repetições do scanner com o mesmo Idempotency-Key
+    private final QueueVersion queueVersion; // ETag do GET /api/packages
+    private final SnapshotCache snapshotCache; // Corpo pronto (JSON/gzip) do GET /api/packages
+    private final QueueEventBroadcaster queueEventBroadcaster; // Seq dos deltas já contidos no GET
 
+    // ETag pela versão da fila (mutações locais e de outras instâncias, via QueueSync):
+    // painéis ociosos revalidam e recebem 304 sem consultar o banco
     @GetMapping
-    public List<ProductPackage> getAllPackages() {
-        return packageService.findAll();
+    public ResponseEntity<byte[]> getAllPackages(WebRequest request) {
+        long queueSeq = queueEventBroadcaster.currentSeq();
+        return ConditionalGet.snapshot(request, snapshotCache, "packages", queueSeq,
+                queueVersion.etag("packages"), packageService::findAll);
     }
 
-    @PostMapping("/entry")
-    public ResponseEntity<?> entryPackage(@Valid @RequestBody PackageEntryRequest request) {
+    // Versão paginada por cursor: ?buffer=RTS&rua=RUA-01&size=100&cursor=<nextCursor>
+    @GetMapping("/page")
+    public ResponseEntity<?> getPackagesPage(
+            @RequestParam(required = false) String buffer,
+            @RequestParam(required = false) String rua,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
         try {
-            ProductPackage savedPackage = packageService.registerEntry(request);
-            // Sem broadcast
-            return ResponseEntity.ok(savedPackage);
+            return ResponseEntity.ok(packageService.findPage(buffer, rua, cursor, size));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    @DeleteMapping("/{id}")
-    public ResponseEntity<?> exitPackage(@PathVariable Long id) {
+    // Cabeça da fila: os N mais antigos por buffer (ou por buffer + rua) e a idade do mais antigo
+    @GetMapping("/head")
+    public ResponseEntity<?> getQueueHead(
+            @RequestParam(required = false) String buffer,
+            @RequestParam(required = false) String rua,
+            @RequestParam(defaultValue = "1") int limit) {
         try {
-            packageService.registerExit(id);
-            // Sem broadcast
-            return ResponseEntity.noContent().build();
+            return ResponseEntity.ok(packageService.findHead(buffer, rua, limit));
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.notFound().build();
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    @PostMapping("/entry")
+    public ResponseEntity<?> entryPackage(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody PackageEntryRequest request) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/packages/entry", request, () -> {
+            try {
+                ProductPackage savedPackage = packageService.registerEntry(request);
+                // Broadcast via PackageQueueEvent (após o commit)
+                return ResponseEntity.ok(savedPackage);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> exitPackage(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @PathVariable Long id) {
+        return idempotencyService.execute(idempotencyKey, "DELETE /api/packages/{id}", id, () -> {
+            try {
+                packageService.registerExit(id);
+                // Broadcast via PackageQueueEvent (após o commit)
+                return ResponseEntity.noContent().build();
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
     @PutMapping("/{id}/move")
-    public ResponseEntity<?> movePackage(@PathVariable Long id, @Valid @RequestBody PackageMoveRequest request) {
-        try {
-            ProductPackage updatedPackage = packageService.registerMove(id, request.rua());
-            // Sem broadcast
-            return ResponseEntity.ok(updatedPackage);
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<?> movePackage(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @PathVariable Long id, @Valid @RequestBody PackageMoveRequest request) {
+        return idempotencyService.execute(idempotencyKey, "PUT /api/packages/{id}/move", List.of(id, request), () -> {
+            try {
+                PackageMoveDTO updatedPackage = packageService.registerMove(id, request.rua());
+                // Broadcast via PackageQueueEvent (após o commit)
+                return ResponseEntity.ok(updatedPackage);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.notFound().build();
+            }
+        });
     }
 
     @PostMapping("/exit")
-    public ResponseEntity<?> exitPackageByTrackingId(@RequestBody Map<String, String> body) {
+    public ResponseEntity<?> exitPackageByTrackingId(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody Map<String, String> body) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/packages/exit", body,
+                () -> exitByTrackingId(body));
+    }
+
+    private ResponseEntity<?> exitByTrackingId(Map<String, String> body) {
         String trackingId = body.get("trackingId");
         if (trackingId == null) return ResponseEntity.badRequest().body("Tracking ID obrigatório");
 
-        var pkg = packageService.findByTrackingIdGlobally(trackingId);
-        
-        if (pkg == null) return ResponseEntity.notFound().build();
-        if (pkg.getDeletedAt() != null) return ResponseEntity.badRequest().body("Item já saiu da fila.");
-
-        packageService.registerExit(pkg.getId());
-        // Sem broadcast
+        // Caminho feliz: um único UPDATE. A busca global só roda para explicar a falha.
+        if (!packageService.registerExitByTrackingId(trackingId)) {
+            var pkg = packageService.findByTrackingIdGlobally(trackingId);
+            if (pkg == null) return ResponseEntity.notFound().build();
+            return ResponseEntity.badRequest().body("Item já saiu da fila.");
+        }
+        // Broadcast via PackageQueueEvent (após o commit)
         return ResponseEntity.ok().body(Map.of("message", "Saída registrada."));
     }
+
+    // --- Lotes (pallets com centenas de etiquetas): uma requisição, uma transação ---
+
+    @PostMapping("/entry/batch")
+    public ResponseEntity<?> entryBatch(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody PackageEntryBatchRequest request) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/packages/entry/batch", request,
+                () -> ResponseEntity.ok(batchResponse(packageService.registerEntryBatch(request.items()))));
+    }
+
+    @PostMapping("/exit/batch")
+    public ResponseEntity<?> exitBatch(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody PackageExitBatchRequest request) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/packages/exit/batch", request,
+                () -> ResponseEntity.ok(batchResponse(packageService.registerExitBatch(request.trackingIds()))));
+    }
+
+    @PostMapping("/move/batch")
+    public ResponseEntity<?> moveBatch(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody PackageMoveBatchRequest request) {
+        return idempotencyService.execute(idempotencyKey, "POST /api/packages/move/batch", request,
+                () -> ResponseEntity.ok(batchResponse(packageService.registerMoveBatch(request.items()))));
+    }
+
+    private Map<String, Object> batchResponse(List<BatchItemResult> results) {
+        long succeeded = results.stream().filter(BatchItemResult::success).count();
+        return Map.of(
+            "results", results,
+            "succeeded", succeeded,
+            "failed", results.size() - succeeded
+        );
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.joaopssouza.fifosystem.controller;
 
+import com.joaopssouza.fifosystem.dto.LabelConfirmResult;
 import com.joaopssouza.fifosystem.service.QrCodeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -28,8 +29,12 @@ public class QrCodeController {
         List<String> trackingIds = body.get("trackingIds");
         if (trackingIds == null || trackingIds.isEmpty()) return ResponseEntity.badRequest().build();
 
-        qrCodeService.confirmData(trackingIds);
-        return ResponseEntity.ok(Map.of("message", "Códigos confirmados."));
+        LabelConfirmResult result = qrCodeService.confirmData(trackingIds);
+        return ResponseEntity.ok(Map.of(
+                "message", "Códigos confirmados.",
+                "inserted", result.inserted(),
+                "duplicates", result.duplicates()
+        ));
     }
 
     @GetMapping("/find/{trackingId}")
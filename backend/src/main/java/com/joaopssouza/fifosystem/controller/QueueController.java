@@ -0,0 +1,46 @@
+package com.joaopssouza.fifosystem.controller;
+
+import com.joaopssouza.fifosystem.service.FifoQueueIndex;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/queue")
+@RequiredArgsConstructor
+@Tag(name = "Fila", description = "Consultas da fila FIFO em memória")
+public class QueueController {
+
+    // Respostas montadas a partir do FifoQueueIndex (não consulta o banco)
+    private final FifoQueueIndex fifoQueueIndex;
+
+    // Próximos a sair: ?buffer=RTS&rua=RUA-01&limit=1
+    @GetMapping("/next")
+    public ResponseEntity<?> getNext(
+            @RequestParam String buffer,
+            @RequestParam(required = false) String rua,
+            @RequestParam(defaultValue = "1") int limit) {
+        try {
+            return ResponseEntity.ok(fifoQueueIndex.next(buffer, rua, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/position/{trackingId}")
+    public ResponseEntity<?> getPosition(@PathVariable String trackingId) {
+        return fifoQueueIndex.position(trackingId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/depth")
+    public ResponseEntity<?> getDepth() {
+        return ResponseEntity.ok(fifoQueueIndex.depths());
+    }
+}
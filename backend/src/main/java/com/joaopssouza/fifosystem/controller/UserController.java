@@ -2,6 +2,7 @@ package com.joaopssouza.fifosystem.controller;
 
 import com.joaopssouza.fifosystem.domain.entity.User;
 import com.joaopssouza.fifosystem.domain.repository.UserRepository;
+import com.joaopssouza.fifosystem.service.EntityCacheService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +21,7 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final EntityCacheService entityCacheService;
 
     @PutMapping("/change-password")
     public ResponseEntity<?> changePassword(@RequestBody Map<String, String> body) {
@@ -44,6 +46,7 @@ public class UserController {
         // Salva nova senha
         user.setPasswordHash(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        entityCacheService.evictUser(user.getId(), username);
 
         return ResponseEntity.ok(Map.of("message", "Senha alterada com sucesso"));
     }
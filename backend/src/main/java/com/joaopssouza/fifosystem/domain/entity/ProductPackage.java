@@ -9,6 +9,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.jdbc.Expectation;
 import java.time.LocalDateTime;
 
 @Entity
@@ -17,13 +18,17 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@SQLDelete(sql = "UPDATE packages SET deleted_at = CURRENT_TIMESTAMP WHERE id = ?")
+// Com @Version o Hibernate também passa a versão: a saída falha se outra operação alterou o pacote
+@SQLDelete(sql = "UPDATE packages SET deleted_at = CURRENT_TIMESTAMP, version = version + 1 WHERE id = ? AND version = ?",
+        verify = Expectation.RowCount.class)
 @SQLRestriction("deleted_at IS NULL") // O Hibernate vai filtrar os deletados automaticamente nas buscas normais
 
 public class ProductPackage {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // V13: sequence com pooled-lo (50 IDs por nextval) para permitir o batch de INSERTs
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "packages_id_seq")
+    @SequenceGenerator(name = "packages_id_seq", sequenceName = "packages_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "tracking_id", nullable = false, unique = true)
@@ -51,4 +56,7 @@ public class ProductPackage {
     private LocalDateTime updatedAt;
 
     private LocalDateTime deletedAt;
+
+    @Version
+    private Long version; // V11: controle de concorrência otimista
 }
\ No newline at end of file
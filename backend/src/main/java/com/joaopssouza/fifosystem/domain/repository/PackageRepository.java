@@ -1,9 +1,14 @@
 package com.joaopssouza.fifosystem.domain.repository;
 
 import com.joaopssouza.fifosystem.domain.entity.ProductPackage;
+import com.joaopssouza.fifosystem.dto.PackageMoveDTO;
+import com.joaopssouza.fifosystem.dto.PackageSummaryDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface PackageRepository extends JpaRepository<ProductPackage, Long> {
@@ -12,6 +17,81 @@ public interface PackageRepository extends JpaRepository<ProductPackage, Long> {
     // Busca todos os pacotes cujo buffer NÃO é o valor passado (ex: "PENDENTE")
     List<ProductPackage> findByBufferNotOrderByEntryTimestampAsc(String buffer);
 
+    // Mesma fila do método acima, mas projetada direto no DTO (sem carregar entidades)
+    @Query("""
+            SELECT new com.joaopssouza.fifosystem.dto.PackageSummaryDTO(
+                p.id, p.trackingId, p.buffer, p.rua, p.profileType, p.profileValue, p.entryTimestamp)
+            FROM ProductPackage p
+            WHERE p.buffer <> :excludedBuffer
+            ORDER BY p.entryTimestamp ASC, p.id ASC
+            """)
+    List<PackageSummaryDTO> findSummariesByBufferNot(String excludedBuffer);
+
+    // --- Paginação por cursor (keyset em entryTimestamp, id) ---
+    // entryTimestamp nulo vai para o fim (NULLS LAST, mesma ordem do FifoQueueIndex.QueueKey)
+    // Primeira página
+    @Query("""
+            SELECT new com.joaopssouza.fifosystem.dto.PackageSummaryDTO(
+                p.id, p.trackingId, p.buffer, p.rua, p.profileType, p.profileValue, p.entryTimestamp)
+            FROM ProductPackage p
+            WHERE p.buffer <> :excludedBuffer
+              AND (:buffer IS NULL OR p.buffer = :buffer)
+              AND (:rua IS NULL OR p.rua = :rua)
+            ORDER BY p.entryTimestamp ASC NULLS LAST, p.id ASC
+            """)
+    List<PackageSummaryDTO> findSummaryPage(String excludedBuffer, String buffer, String rua, Limit limit);
+
+    // Páginas seguintes: tudo que vem depois do último item (entryTimestamp, id) já entregue
+    @Query("""
+            SELECT new com.joaopssouza.fifosystem.dto.PackageSummaryDTO(
+                p.id, p.trackingId, p.buffer, p.rua, p.profileType, p.profileValue, p.entryTimestamp)
+            FROM ProductPackage p
+            WHERE p.buffer <> :excludedBuffer
+              AND (:buffer IS NULL OR p.buffer = :buffer)
+              AND (:rua IS NULL OR p.rua = :rua)
+              AND (p.entryTimestamp > :afterTimestamp
+                   OR (p.entryTimestamp = :afterTimestamp AND p.id > :afterId)
+                   OR p.entryTimestamp IS NULL)
+            ORDER BY p.entryTimestamp ASC NULLS LAST, p.id ASC
+            """)
+    List<PackageSummaryDTO> findSummaryPageAfter(String excludedBuffer, String buffer, String rua,
+                                                 LocalDateTime afterTimestamp, Long afterId, Limit limit);
+
+    // Páginas seguintes quando o último item entregue já era sem entryTimestamp: só resta o fim
+    @Query("""
+            SELECT new com.joaopssouza.fifosystem.dto.PackageSummaryDTO(
+                p.id, p.trackingId, p.buffer, p.rua, p.profileType, p.profileValue, p.entryTimestamp)
+            FROM ProductPackage p
+            WHERE p.buffer <> :excludedBuffer
+              AND (:buffer IS NULL OR p.buffer = :buffer)
+              AND (:rua IS NULL OR p.rua = :rua)
+              AND p.entryTimestamp IS NULL
+              AND p.id > :afterId
+            ORDER BY p.id ASC
+            """)
+    List<PackageSummaryDTO> findSummaryPageAfterUntimed(String excludedBuffer, String buffer, String rua,
+                                                        Long afterId, Limit limit);
+
+    // --- Cabeça da fila (V10: idx_packages_head_buffer / idx_packages_head_buffer_rua) ---
+    // Consultas separadas (em vez de ":rua IS NULL OR ...") para que cada uma use o seu índice
+    @Query("""
+            SELECT new com.joaopssouza.fifosystem.dto.PackageSummaryDTO(
+                p.id, p.trackingId, p.buffer, p.rua, p.profileType, p.profileValue, p.entryTimestamp)
+            FROM ProductPackage p
+            WHERE p.buffer = :buffer
+            ORDER BY p.entryTimestamp ASC, p.id ASC
+            """)
+    List<PackageSummaryDTO> findHeadByBuffer(String buffer, Limit limit);
+
+    @Query("""
+            SELECT new com.joaopssouza.fifosystem.dto.PackageSummaryDTO(
+                p.id, p.trackingId, p.buffer, p.rua, p.profileType, p.profileValue, p.entryTimestamp)
+            FROM ProductPackage p
+            WHERE p.buffer = :buffer AND p.rua = :rua
+            ORDER BY p.entryTimestamp ASC, p.id ASC
+            """)
+    List<PackageSummaryDTO> findHeadByBufferAndRua(String buffer, String rua, Limit limit);
+
     // Spring Data JPA cria a query automaticamente baseada no nome do método!
     List<ProductPackage> findByBuffer(String buffer);
 
@@ -24,4 +104,88 @@ public interface PackageRepository extends JpaRepository<ProductPackage, Long> {
     // Busca pacote mesmo se deletado (para reimpressão)
     @Query(value = "SELECT * FROM packages WHERE tracking_id = :trackingId LIMIT 1", nativeQuery = true)
     ProductPackage findByTrackingIdGlobally(String trackingId);
+
+    // Entrada em um único comando: insere, ou reativa o pacote se estiver deletado.
+    // Se ele já está ativo o WHERE do DO UPDATE barra a atualização e nenhuma linha volta (null),
+    // então dois scanners lendo a mesma etiqueta não conseguem registrar a entrada duas vezes.
+    @Query(value = """
+            INSERT INTO packages (tracking_id, buffer, rua, profile_type, profile_value,
+                                  entry_timestamp, created_at, updated_at, deleted_at, version)
+            VALUES (:trackingId, :buffer, :rua, :profileType, :profileValue, :now, :now, :now, NULL, 0)
+            ON CONFLICT (tracking_id) DO UPDATE
+               SET buffer = EXCLUDED.buffer,
+                   rua = EXCLUDED.rua,
+                   profile_type = EXCLUDED.profile_type,
+                   profile_value = EXCLUDED.profile_value,
+                   entry_timestamp = EXCLUDED.entry_timestamp,
+                   updated_at = EXCLUDED.updated_at,
+                   deleted_at = NULL,
+                   version = packages.version + 1
+             WHERE packages.deleted_at IS NOT NULL
+            RETURNING *
+            """, nativeQuery = true)
+    ProductPackage upsertEntry(String trackingId, String buffer, String rua, String profileType,
+                               Integer profileValue, LocalDateTime now);
+
+    // --- Saída e movimentação em um único comando (sem SELECT antes) ---
+    // O WHERE deleted_at IS NULL faz a checagem de existência: nenhuma linha = não encontrado
+    // ou já saiu. Duas saídas simultâneas do mesmo pacote: só uma recebe a linha de volta.
+    @Query(value = """
+            UPDATE packages
+               SET deleted_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP, version = version + 1
+             WHERE id = :id AND deleted_at IS NULL
+            RETURNING *
+            """, nativeQuery = true)
+    ProductPackage exitById(Long id);
+
+    @Query(value = """
+            UPDATE packages
+               SET deleted_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP, version = version + 1
+             WHERE tracking_id = :trackingId AND deleted_at IS NULL
+            RETURNING *
+            """, nativeQuery = true)
+    ProductPackage exitByTrackingId(String trackingId);
+
+    // O FOR UPDATE na CTE trava a linha antes da leitura: a rua anterior devolvida é
+    // exatamente a que este UPDATE substituiu. Mesma rua (ou pacote inexistente): nenhuma linha.
+    // Colunas na ordem do PackageMoveDTO e com apelido em cada uma (p.rua e previous.rua teriam o
+    // mesmo nome); o CAST entrega entry_timestamp como LocalDateTime, igual à entidade.
+    @Query(value = """
+            WITH previous AS (
+                SELECT id, rua FROM packages
+                 WHERE id = :id AND deleted_at IS NULL
+                 FOR UPDATE
+            )
+            UPDATE packages p
+               SET rua = :rua, updated_at = CURRENT_TIMESTAMP, version = p.version + 1
+              FROM previous
+             WHERE p.id = previous.id AND previous.rua <> :rua
+            RETURNING p.id AS id, p.tracking_id AS tracking_id, p.buffer AS buffer, p.rua AS rua,
+                      previous.rua AS previous_rua, p.profile_type AS profile_type,
+                      p.profile_value AS profile_value, CAST(p.entry_timestamp AS TIMESTAMP) AS entry_timestamp,
+                      p.version AS version
+            """, nativeQuery = true)
+    PackageMoveDTO moveRua(Long id, String rua);
+
+    // Versão em lote da busca acima (uma única consulta IN para os endpoints /batch)
+    @Query(value = "SELECT * FROM packages WHERE tracking_id IN (:trackingIds)", nativeQuery = true)
+    List<ProductPackage> findAllByTrackingIdGlobally(Collection<String> trackingIds);
+
+    // Apenas os tracking IDs já usados (incluindo deletados), numa única consulta
+    @Query(value = "SELECT tracking_id FROM packages WHERE tracking_id IN (:trackingIds)", nativeQuery = true)
+    List<String> findExistingTrackingIdsGlobally(Collection<String> trackingIds);
+
+    // Agregado por buffer para reconstruir o QueueStatsEngine (uma linha por buffer)
+    // Colunas: buffer, total, soma de valores, total com timestamp, soma das entradas (epoch em segundos)
+    @Query(value = """
+            SELECT buffer,
+                   COUNT(*),
+                   COALESCE(SUM(profile_value), 0),
+                   COUNT(entry_timestamp),
+                   CAST(COALESCE(SUM(FLOOR(EXTRACT(EPOCH FROM entry_timestamp))), 0) AS BIGINT)
+            FROM packages
+            WHERE deleted_at IS NULL AND buffer <> :excludedBuffer
+            GROUP BY buffer
+            """, nativeQuery = true)
+    List<Object[]> aggregateActiveByBuffer(String excludedBuffer);
 }
\ No newline at end of file
@@ -1,11 +1,19 @@
 package com.joaopssouza.fifosystem.domain.repository;
 
 import com.joaopssouza.fifosystem.domain.entity.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.Optional;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
     // O Spring Data JPA cria a query automaticamente baseada no nome do método!
     // SELECT * FROM roles WHERE name = ?
+    // (resultado guardado na região de consultas "role-queries")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "role-queries")
+    })
     Optional<Role> findByName(String name);
 }
\ No newline at end of file
@@ -1,9 +1,19 @@
 package com.joaopssouza.fifosystem.domain.repository;
 
 import com.joaopssouza.fifosystem.domain.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    // Região de consultas "user-queries": o resultado (id) vem do cache de consultas
+    // e o usuário da região "users", sem ir ao banco
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "user-queries")
+    })
     Optional<User> findByUsername(String username);
-}
\ No newline at end of file
+}
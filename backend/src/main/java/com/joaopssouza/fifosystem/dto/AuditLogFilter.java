@@ -0,0 +1,44 @@
+package com.joaopssouza.fifosystem.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+// Filtros da consulta de auditoria (campos nulos = sem filtro); texto é busca "contém", sem diferenciar maiúsculas
+public record AuditLogFilter(
+    String username,
+    String fullname,
+    String action,
+    String details,
+    LocalDateTime start,
+    LocalDateTime end
+) {
+    // Datas no formato yyyy-MM-dd (início do dia inicial até o fim do dia final)
+    public static AuditLogFilter of(String username, String fullname, String action, String details,
+                                    String startDate, String endDate) {
+        LocalDate startDay = parseDate(startDate);
+        LocalDate endDay = parseDate(endDate);
+        return new AuditLogFilter(
+            blankToNull(username),
+            blankToNull(fullname),
+            blankToNull(action),
+            blankToNull(details),
+            startDay != null ? startDay.atStartOfDay() : null,
+            endDay != null ? endDay.atTime(LocalTime.MAX) : null
+        );
+    }
+
+    private static String blankToNull(String value) {
+        return (value == null || value.trim().isEmpty()) ? null : value.trim();
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (blankToNull(value) == null) return null;
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Data inválida: " + value);
+        }
+    }
+}
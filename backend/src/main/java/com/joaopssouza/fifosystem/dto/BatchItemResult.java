@@ -0,0 +1,16 @@
+package com.joaopssouza.fifosystem.dto;
+
+// Resultado individual de cada item dos endpoints /batch
+public record BatchItemResult(
+    String trackingId,
+    boolean success,
+    String message
+) {
+    public static BatchItemResult ok(String trackingId, String message) {
+        return new BatchItemResult(trackingId, true, message);
+    }
+
+    public static BatchItemResult error(String trackingId, String message) {
+        return new BatchItemResult(trackingId, false, message);
+    }
+}
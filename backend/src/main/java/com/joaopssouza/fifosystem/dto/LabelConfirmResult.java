@@ -0,0 +1,8 @@
+package com.joaopssouza.fifosystem.dto;
+
+// Resultado da confirmação de etiquetas: duplicates = IDs que já existiam (ou repetidos no pedido)
+public record LabelConfirmResult(
+    int requested,
+    int inserted,
+    int duplicates
+) {}
@@ -0,0 +1,13 @@
+package com.joaopssouza.fifosystem.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record PackageExitBatchRequest(
+    @NotEmpty(message = "O lote não pode ser vazio")
+    @Size(max = 500, message = "O lote aceita no máximo 500 itens")
+    List<@NotBlank(message = "Tracking ID é obrigatório") String> trackingIds
+) {}
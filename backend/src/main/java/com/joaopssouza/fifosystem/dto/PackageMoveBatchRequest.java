@@ -0,0 +1,22 @@
+package com.joaopssouza.fifosystem.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record PackageMoveBatchRequest(
+    @NotEmpty(message = "O lote não pode ser vazio")
+    @Size(max = 500, message = "O lote aceita no máximo 500 itens")
+    List<@Valid Item> items
+) {
+    public record Item(
+        @NotBlank(message = "Tracking ID é obrigatório")
+        String trackingId,
+
+        @NotBlank(message = "A nova rua é obrigatória")
+        String rua
+    ) {}
+}
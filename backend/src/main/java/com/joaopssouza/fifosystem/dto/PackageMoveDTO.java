@@ -0,0 +1,16 @@
+package com.joaopssouza.fifosystem.dto;
+
+import java.time.LocalDateTime;
+
+// Resultado da movimentação, devolvido pelo próprio UPDATE ... RETURNING (rua anterior inclusa)
+public record PackageMoveDTO(
+    Long id,
+    String trackingId,
+    String buffer,
+    String rua,
+    String previousRua,
+    String profileType,
+    Integer profileValue,
+    LocalDateTime entryTimestamp,
+    Long version
+) {}
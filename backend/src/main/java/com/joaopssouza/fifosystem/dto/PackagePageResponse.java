@@ -0,0 +1,9 @@
+package com.joaopssouza.fifosystem.dto;
+
+import java.util.List;
+
+// nextCursor == null indica que não há mais páginas
+public record PackagePageResponse(
+    List<PackageSummaryDTO> items,
+    String nextCursor
+) {}
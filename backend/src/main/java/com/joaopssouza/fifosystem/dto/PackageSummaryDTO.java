@@ -0,0 +1,14 @@
+package com.joaopssouza.fifosystem.dto;
+
+import java.time.LocalDateTime;
+
+// Projeção enxuta da fila (sem createdAt/updatedAt/deletedAt), montada direto no JPQL
+public record PackageSummaryDTO(
+    Long id,
+    String trackingId,
+    String buffer,
+    String rua,
+    String profileType,
+    Integer profileValue,
+    LocalDateTime entryTimestamp
+) {}
@@ -0,0 +1,11 @@
+package com.joaopssouza.fifosystem.dto;
+
+import java.util.List;
+
+// Cabeça da fila de um buffer (e opcionalmente de uma rua): itens mais antigos primeiro
+public record QueueHeadDTO(
+    String buffer,
+    String rua,
+    long oldestAgeSeconds,
+    List<PackageSummaryDTO> items
+) {}
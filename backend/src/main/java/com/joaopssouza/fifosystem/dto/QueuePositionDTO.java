@@ -0,0 +1,12 @@
+package com.joaopssouza.fifosystem.dto;
+
+// Posição (1 = próximo a sair) de um pacote na fila do seu buffer e da sua rua
+public record QueuePositionDTO(
+    String trackingId,
+    String buffer,
+    String rua,
+    long bufferPosition,
+    long bufferDepth,
+    long ruaPosition,
+    long ruaDepth
+) {}
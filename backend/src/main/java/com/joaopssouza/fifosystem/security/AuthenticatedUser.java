@@ -0,0 +1,23 @@
+package com.joaopssouza.fifosystem.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal do Spring Security com o nome completo do usuário, para que a
+ * auditoria não precise buscar o usuário no banco a cada operação.
+ */
+@Getter
+public class AuthenticatedUser extends User {
+
+    private final String fullName;
+
+    public AuthenticatedUser(String username, String password, String fullName,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.fullName = fullName;
+    }
+}
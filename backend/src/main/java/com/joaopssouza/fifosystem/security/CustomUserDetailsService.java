@@ -18,20 +18,34 @@ import java.util.Set;
 public class CustomUserDetailsService implements UserDetailsService {
 
         private final UserRepository userRepository;
+        private final UserPrincipalCache userPrincipalCache;
 
         @Override
         public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+                // Cache com TTL: evita o SELECT (com JOIN de Role/Permission) a cada requisição
+                UserPrincipalCache.CachedUser user = userPrincipalCache.get(username, this::loadFromDatabase);
+
+                return new AuthenticatedUser(
+                                user.username(),
+                                user.passwordHash(),
+                                user.fullName(),
+                                authoritiesFor(user.role()));
+        }
+
+        // Converte o Role do banco para Authority do Spring
+        public static Set<GrantedAuthority> authoritiesFor(String role) {
+                return Collections.singleton(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+        }
+
+        private UserPrincipalCache.CachedUser loadFromDatabase(String username) {
                 User user = userRepository.findByUsername(username)
                                 .orElseThrow(() -> new UsernameNotFoundException(
                                                 "Usuário não encontrado: " + username));
 
-                // Converte o Role do banco para Authority do Spring
-                Set<GrantedAuthority> authorities = Collections.singleton(
-                                new SimpleGrantedAuthority("ROLE_" + user.getRole().getName().toUpperCase()));
-
-                return new org.springframework.security.core.userdetails.User(
+                return new UserPrincipalCache.CachedUser(
                                 user.getUsername(),
                                 user.getPasswordHash(),
-                                authorities);
+                                user.getFullName(),
+                                user.getRole().getName());
         }
-}
\ No newline at end of file
+}
@@ -1,10 +1,12 @@
 package com.joaopssouza.fifosystem.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,6 +25,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
 
+    // "claims": principal montado a partir do JWT verificado, sem acesso ao banco
+    //           (mudanças de role só valem após novo login/expiração do token)
+    // "database": principal carregado via CustomUserDetailsService (com cache TTL)
+    @Value("${security.jwt.principal-source:database}")
+    private String principalSource;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -31,13 +39,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 1. Obter token do header
         String token = getTokenFromRequest(request);
 
-        // 2. Validar token
-        if (StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)) {
-            // 3. Obter username do token
-            String username = jwtTokenProvider.getUsername(token);
+        // 2. Validar token (uma única verificação de assinatura)
+        Claims claims = StringUtils.hasText(token) ? jwtTokenProvider.parseClaims(token).orElse(null) : null;
 
-            // 4. Carregar usuário associado ao token
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (claims != null) {
+            // 3 e 4. Montar o usuário associado ao token
+            UserDetails userDetails = "claims".equalsIgnoreCase(principalSource)
+                    ? fromClaims(claims)
+                    : userDetailsService.loadUserByUsername(claims.getSubject());
 
             // 5. Autenticar no contexto do Spring Security
             UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
@@ -52,6 +61,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Respostas em streaming (StreamingResponseBody) terminam num dispatch ASYNC, que também
+    // passa pela autorização: o token precisa ser aplicado de novo
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private UserDetails fromClaims(Claims claims) {
+        String role = claims.get("role", String.class);
+        return new AuthenticatedUser(
+                claims.getSubject(),
+                "", // Não há senha no token; o principal nunca é usado para login
+                claims.get("fullName", String.class),
+                CustomUserDetailsService.authoritiesFor(role != null ? role : "")
+        );
+    }
+
     private String getTokenFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -1,13 +1,23 @@
 package com.joaopssouza.fifosystem.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import com.joaopssouza.fifosystem.domain.entity.User; // Importe sua entidade User
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.crypto.SecretKey;
@@ -22,9 +32,25 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration}")
     private long jwtExpirationDate;
 
-    // Gera a chave criptográfica segura a partir da string
-    private SecretKey key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    // Tokens já verificados (chave = SHA-256 do token); 0 desativa o cache
+    @Value("${security.jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize;
+
+    // Chave e parser são imutáveis e thread-safe: criados uma única vez na subida
+    private SecretKey key;
+    private JwtParser parser;
+    private Cache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        parser = Jwts.parser().verifyWith(key).build();
+        verifiedTokens = verifiedCacheMaxSize > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(verifiedCacheMaxSize)
+                        .expireAfter(new UntilTokenExpires())
+                        .build()
+                : null;
     }
 
     // Gerar Token JWT
@@ -51,28 +77,72 @@ public class JwtTokenProvider {
                 .subject(user.getUsername())
                 .issuedAt(new Date())
                 .expiration(expireDate)
-                .signWith(key())
+                .signWith(key)
                 .compact();
     }
 
+    // Valida o token (assinatura + expiração) uma única vez e devolve as claims.
+    // Tokens repetidos dentro da validade saem do cache sem refazer o HMAC.
+    public Optional<Claims> parseClaims(String token) {
+        if (token == null || token.isBlank()) return Optional.empty();
+
+        String cacheKey = verifiedTokens != null ? sha256(token) : null;
+        if (cacheKey != null) {
+            Claims cached = verifiedTokens.getIfPresent(cacheKey);
+            if (cached != null) return Optional.of(cached);
+        }
+
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (cacheKey != null) verifiedTokens.put(cacheKey, claims);
+            return Optional.of(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     // Obter username do Token
     public String getUsername(String token) {
-        return Jwts.parser()
-                .verifyWith(key())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return getClaims(token).getSubject();
+    }
+
+    // Obter todas as claims verificadas (subject, role, fullName, permissions)
+    public Claims getClaims(String token) {
+        return parseClaims(token).orElseThrow(() -> new JwtException("Token inválido ou expirado."));
     }
 
     // Validar Token
     public boolean validateToken(String token) {
+        return parseClaims(token).isPresent();
+    }
+
+    private static String sha256(String token) {
         try {
-            Jwts.parser().verifyWith(key()).build().parse(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            // Em um projeto real, logaríamos o erro aqui
-            return false;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 é obrigatório em toda JVM
+        }
+    }
+
+    // Cada entrada vive só até o "exp" do próprio token
+    private static class UntilTokenExpires implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) return 0;
+            long remainingMs = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package com.joaopssouza.fifosystem.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache limitado (tamanho + TTL) dos dados de autenticação por username.
+ * Guarda apenas dados imutáveis: o UserDetails é recriado a cada uso, pois o
+ * Spring Security apaga a senha do principal após o login.
+ * Invalidado pelo UserService sempre que o usuário muda.
+ */
+@Component
+public class UserPrincipalCache {
+
+    public record CachedUser(String username, String passwordHash, String fullName, String role) {}
+
+    private final Cache<String, CachedUser> cache;
+
+    public UserPrincipalCache(@Value("${security.user-cache.max-size:1000}") long maxSize,
+                              @Value("${security.user-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public CachedUser get(String username, Function<String, CachedUser> loader) {
+        return cache.get(username, loader);
+    }
+
+    public void evict(String username) {
+        if (username != null) cache.invalidate(username);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        return Map.of(
+            "size", cache.estimatedSize(),
+            "hits", stats.hitCount(),
+            "misses", stats.missCount(),
+            "evictions", stats.evictionCount()
+        );
+    }
+}
@@ -0,0 +1,223 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.joaopssouza.fifosystem.dto.AuditLogFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consultas de auditoria em SQL direto: paginação por keyset em (created_at, id) decrescente
+ * e filtros "contém" atendidos pelos índices de trigramas (V8). As linhas são escritas direto
+ * no JsonGenerator (ou CSV), sem materializar entidades nem listas.
+ */
+@Service
+@RequiredArgsConstructor
+public class AuditLogQueryService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    public enum ExportFormat {
+        CSV, NDJSON;
+
+        public static ExportFormat parse(String value) {
+            for (ExportFormat format : values()) {
+                if (format.name().equalsIgnoreCase(value.trim())) return format;
+            }
+            throw new IllegalArgumentException("Formato inválido (use csv ou ndjson).");
+        }
+    }
+
+    private static final String COLUMNS = "id, username, user_fullname, action, details, created_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final JsonMapper jsonMapper;
+
+    // Linhas por ida ao banco no cursor da exportação
+    @Value("${audit.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    // Valida antes do streaming começar (depois disso não há como responder 400)
+    public static void checkPageSize(int size) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Tamanho de página deve estar entre 1 e " + MAX_PAGE_SIZE + ".");
+        }
+    }
+
+    // Escreve {"items":[...],"nextCursor":...}; nextCursor == null indica que não há mais páginas
+    public void writePage(AuditLogFilter filter, KeysetCursor after, int size, OutputStream out) {
+        checkPageSize(size);
+
+        Where where = where(filter);
+        if (after != null) {
+            where.and("(created_at, id) < (?, ?)", Timestamp.valueOf(after.timestamp()), after.id());
+        }
+        where.params.add(size + 1); // Um a mais para saber se existe próxima página
+
+        String sql = "SELECT " + COLUMNS + " FROM audit_logs" + where.sql()
+                + " ORDER BY created_at DESC, id DESC LIMIT ?";
+
+        try (JsonGenerator json = jsonMapper.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeArrayPropertyStart("items");
+
+            KeysetCursor[] last = new KeysetCursor[1];
+            int[] written = {0};
+            boolean[] hasMore = {false};
+
+            jdbcTemplate.query(sql, rs -> {
+                if (written[0] == size) {
+                    hasMore[0] = true;
+                    return;
+                }
+                LocalDateTime createdAt = writeLog(json, rs);
+                last[0] = new KeysetCursor(createdAt, rs.getLong("id"));
+                written[0]++;
+            }, where.params.toArray());
+
+            json.writeEndArray();
+            json.writeStringProperty("nextCursor", hasMore[0] ? last[0].encode() : null);
+            json.writeEndObject();
+        }
+    }
+
+    // Exportação completa (mesma ordem da tela) em memória constante: o driver do PostgreSQL só
+    // usa cursor (fetch size) com autocommit desligado, daí a transação somente leitura
+    public void export(AuditLogFilter filter, ExportFormat format, OutputStream out) {
+        Where where = where(filter);
+        String sql = "SELECT " + COLUMNS + " FROM audit_logs" + where.sql() + " ORDER BY created_at DESC, id DESC";
+
+        PreparedStatementCreator cursor = con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            new ArgumentPreparedStatementSetter(where.params.toArray()).setValues(ps);
+            return ps;
+        };
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> {
+            if (format == ExportFormat.CSV) {
+                exportCsv(cursor, out);
+            } else {
+                exportNdjson(cursor, out);
+            }
+        });
+    }
+
+    private void exportNdjson(PreparedStatementCreator cursor, OutputStream out) {
+        // NDJSON: um objeto por linha
+        try (JsonGenerator json = jsonMapper.writer().withRootValueSeparator("\n").createGenerator(out)) {
+            jdbcTemplate.query(cursor, (RowCallbackHandler) rs -> writeLog(json, rs));
+            json.writeRaw('\n');
+        }
+    }
+
+    private void exportCsv(PreparedStatementCreator cursor, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            writer.write("id,created_at,username,user_fullname,action,details\r\n");
+            jdbcTemplate.query(cursor, (RowCallbackHandler) rs -> {
+                try {
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    writer.write(rs.getLong("id") + ","
+                            + (createdAt != null ? createdAt.toLocalDateTime() : "") + ","
+                            + csv(rs.getString("username")) + ","
+                            + csv(rs.getString("user_fullname")) + ","
+                            + csv(rs.getString("action")) + ","
+                            + csv(rs.getString("details")) + "\r\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // Cliente desconectou: aborta a consulta
+                }
+            });
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // RFC 4180: aspas quando há vírgula, aspas ou quebra de linha
+    static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static LocalDateTime writeLog(JsonGenerator json, ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        LocalDateTime created = createdAt != null ? createdAt.toLocalDateTime() : null;
+
+        // Mesmo formato do AuditLog serializado pelo Spring
+        json.writeStartObject();
+        json.writeNumberProperty("id", rs.getLong("id"));
+        json.writeStringProperty("username", rs.getString("username"));
+        json.writeStringProperty("userFullname", rs.getString("user_fullname"));
+        json.writeStringProperty("action", rs.getString("action"));
+        json.writeStringProperty("details", rs.getString("details"));
+        json.writeStringProperty("createdAt", created != null ? created.toString() : null);
+        json.writeEndObject();
+        return created;
+    }
+
+    // WHERE montado a partir dos filtros (sempre parametrizado)
+    static Where where(AuditLogFilter filter) {
+        Where where = new Where();
+        if (filter.username() != null) where.and("lower(username) LIKE ?", contains(filter.username()));
+        if (filter.fullname() != null) where.and("lower(user_fullname) LIKE ?", contains(filter.fullname()));
+        if (filter.details() != null) where.and("lower(details) LIKE ?", contains(filter.details()));
+        if (filter.action() != null) where.and("action = ?", filter.action());
+        if (filter.start() != null) where.and("created_at >= ?", Timestamp.valueOf(filter.start()));
+        if (filter.end() != null) where.and("created_at <= ?", Timestamp.valueOf(filter.end()));
+        return where;
+    }
+
+    // '%texto%' com os curingas do usuário escapados (a barra é o escape padrão do PostgreSQL)
+    private static String contains(String text) {
+        String escaped = text.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    static class Where {
+        private final List<String> conditions = new ArrayList<>();
+        final List<Object> params = new ArrayList<>();
+
+        Where and(String condition, Object... values) {
+            conditions.add(condition);
+            params.addAll(List.of(values));
+            return this;
+        }
+
+        String sql() {
+            return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        }
+    }
+}
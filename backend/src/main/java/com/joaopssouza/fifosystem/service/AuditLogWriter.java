@@ -0,0 +1,272 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.joaopssouza.fifosystem.domain.entity.AuditLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escritor da auditoria. Modos (audit.writer.mode):
+ * - sync: grava na própria transação da operação (comportamento original);
+ * - best-effort: fila em memória limitada, drenada em lotes por uma thread em
+ *   background (por tamanho ou por tempo). Perde o que estiver na fila se o
+ *   processo morrer;
+ * - outbox: grava em audit_outbox na mesma transação (durável) e a thread move
+ *   os registros em lote para audit_logs.
+ */
+@Slf4j
+@Component
+public class AuditLogWriter implements SmartLifecycle {
+
+    public enum Mode { SYNC, BEST_EFFORT, OUTBOX }
+
+    private static final String INSERT_LOG =
+            "INSERT INTO audit_logs (username, user_fullname, action, details, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_OUTBOX =
+            "INSERT INTO audit_outbox (username, user_fullname, action, details, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    // Move um lote da outbox para audit_logs num único statement (seguro entre instâncias)
+    private static final String RELAY_OUTBOX = """
+            WITH moved AS (
+                DELETE FROM audit_outbox
+                WHERE id IN (SELECT id FROM audit_outbox ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+                RETURNING username, user_fullname, action, details, created_at
+            )
+            INSERT INTO audit_logs (username, user_fullname, action, details, created_at)
+            SELECT username, user_fullname, action, details, created_at FROM moved ORDER BY created_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final Mode mode;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final long shutdownTimeoutMs;
+    private final BlockingQueue<AuditLog> queue;
+
+    // Métricas de backpressure
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong syncFallbacks = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${audit.writer.mode:sync}") String mode,
+                          @Value("${audit.writer.queue-capacity:10000}") int queueCapacity,
+                          @Value("${audit.writer.batch-size:200}") int batchSize,
+                          @Value("${audit.writer.flush-interval-ms:500}") long flushIntervalMs,
+                          @Value("${audit.writer.offer-timeout-ms:50}") long offerTimeoutMs,
+                          @Value("${audit.writer.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.mode = Mode.valueOf(mode.trim().toUpperCase().replace('-', '_'));
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isSync() {
+        return mode == Mode.SYNC;
+    }
+
+    // Chamado dentro da transação da operação (modos best-effort e outbox)
+    public void submit(List<AuditLog> logs) {
+        if (logs.isEmpty()) return;
+
+        if (mode == Mode.OUTBOX) {
+            insert(INSERT_OUTBOX, logs); // Mesma transação: commit/rollback junto com a operação
+            return;
+        }
+
+        // Best-effort: só enfileira se a operação confirmar
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(logs);
+                }
+            });
+        } else {
+            enqueue(logs);
+        }
+    }
+
+    // Grava direto em audit_logs como batch JDBC (participa da transação corrente, se houver)
+    public void writeBatch(List<AuditLog> logs) {
+        if (logs.isEmpty()) return;
+        insert(INSERT_LOG, logs);
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+            "mode", mode.name(),
+            "queueDepth", queue.size(),
+            "queueCapacity", queue.size() + queue.remainingCapacity(),
+            "maxQueueDepth", maxQueueDepth.get(),
+            "enqueued", enqueued.get(),
+            "written", written.get(),
+            "batches", batches.get(),
+            "syncFallbacks", syncFallbacks.get(),
+            "failed", failed.get()
+        );
+    }
+
+    private void enqueue(List<AuditLog> logs) {
+        List<AuditLog> overflow = new ArrayList<>();
+        for (AuditLog log : logs) {
+            try {
+                if (running && queue.offer(log, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    enqueued.incrementAndGet();
+                } else {
+                    overflow.add(log);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                overflow.add(log);
+            }
+        }
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+
+        // Backpressure: fila cheia (ou writer parado) -> grava no thread do chamador, nunca descarta
+        if (!overflow.isEmpty()) {
+            syncFallbacks.addAndGet(overflow.size());
+            requiresNew.executeWithoutResult(status -> writeBatch(overflow));
+            written.addAndGet(overflow.size());
+        }
+    }
+
+    private void insert(String sql, List<AuditLog> logs) {
+        jdbcTemplate.batchUpdate(sql, logs, logs.size(), (ps, log) -> {
+            ps.setString(1, log.getUsername());
+            ps.setString(2, log.getUserFullname());
+            ps.setString(3, log.getAction());
+            ps.setString(4, log.getDetails());
+            ps.setTimestamp(5, Timestamp.valueOf(log.getCreatedAt()));
+        });
+    }
+
+    private void runQueueWorker() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        // Continua após o stop() até esvaziar a fila (drenagem graciosa)
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // Fecha o lote por tamanho ou quando o intervalo expirar
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) break;
+                    AuditLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stop(): sai da espera e segue drenando o que restou
+            }
+            flush(batch);
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        if (batch.isEmpty()) return;
+        try {
+            requiresNew.executeWithoutResult(status -> writeBatch(batch));
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+            log.error("Falha ao gravar lote de {} registros de auditoria", batch.size(), e);
+        }
+        batch.clear();
+    }
+
+    private void runOutboxRelay() {
+        while (running) {
+            try {
+                Integer moved = requiresNew.execute(status -> jdbcTemplate.update(RELAY_OUTBOX, batchSize));
+                if (moved != null && moved > 0) {
+                    written.addAndGet(moved);
+                    batches.incrementAndGet();
+                }
+                // Lote cheio: provavelmente há mais, não espera
+                if (moved == null || moved < batchSize) Thread.sleep(flushIntervalMs);
+            } catch (InterruptedException e) {
+                // stop(): a outbox é durável, o restante sai na próxima subida
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                log.error("Falha ao mover registros da audit_outbox", e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(flushIntervalMs);
+        } catch (InterruptedException ignored) {
+            // Encerrando
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (mode == Mode.SYNC) return;
+
+        Runnable loop = mode == Mode.OUTBOX ? this::runOutboxRelay : this::runQueueWorker;
+        worker = new Thread(loop, "audit-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker == null) return;
+
+        worker.interrupt();
+        try {
+            worker.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Auditoria encerrada com {} registros não gravados na fila", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,237 @@
+package com.joaopssouza.fifosystem.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Manutenção das partições mensais de audit_logs (V9): cria as partições dos próximos meses
+ * e aplica a retenção nas antigas (DETACH, deixando a tabela avulsa para arquivamento, ou DROP).
+ * Roda na subida e diariamente; um advisory lock garante uma única instância por vez.
+ *
+ * Linhas que caíram na partição default (relógio adiantado, execuções que falharam) são
+ * movidas para a partição do mês delas quando ela é criada; senão o CREATE ... PARTITION OF
+ * falharia para sempre e o mês nunca seria alcançado pela retenção.
+ *
+ * Mês corrente e limites das partições usam a mesma zona (audit.partitions.zone), e os
+ * limites vão com o offset explícito, sem depender do TimeZone da sessão.
+ */
+@Slf4j
+@Component
+public class AuditPartitionMaintenance {
+
+    static final String PREFIX = "audit_logs_p";
+    static final String DEFAULT_PARTITION = "audit_logs_default";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssxxx");
+
+    // Chave arbitrária do pg_advisory_lock desta tarefa
+    private static final long LOCK_KEY = 0x4155_4449_5450_4152L;
+
+    private static final String LIST_PARTITIONS = """
+            SELECT c.relname FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'audit_logs'::regclass
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean dropExpired;
+    private final ZoneId zone;
+
+    public AuditPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                     @Value("${audit.partitions.months-ahead:3}") int monthsAhead,
+                                     @Value("${audit.partitions.retention-months:0}") int retentionMonths,
+                                     @Value("${audit.partitions.retention-action:detach}") String retentionAction,
+                                     @Value("${audit.partitions.zone:}") String zone) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.retentionMonths = Math.max(0, retentionMonths);
+        this.dropExpired = "drop".equalsIgnoreCase(retentionAction.trim());
+        // Vazio: zona da JVM (a mesma que o driver usou como TimeZone da sessão na V9)
+        this.zone = zone == null || zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone.trim());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        run();
+    }
+
+    @Scheduled(cron = "${audit.partitions.cron:0 15 3 * * *}")
+    public void run() {
+        try {
+            List<String> executed = jdbcTemplate.execute((ConnectionCallback<List<String>>) this::maintain);
+            if (executed != null && !executed.isEmpty()) {
+                log.info("Partições de auditoria atualizadas: {}", executed);
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha na manutenção das partições de auditoria", e);
+        }
+    }
+
+    // Cada passo na sua transação: uma falha não impede os demais
+    private List<String> maintain(Connection con) throws SQLException {
+        if (!con.getAutoCommit()) con.setAutoCommit(true);
+        if (!tryLock(con)) return List.of(); // Outra instância já está cuidando
+
+        List<String> executed = new ArrayList<>();
+        try {
+            List<List<String>> steps = plan(YearMonth.now(zone), existingPartitions(con), monthsInDefault(con));
+            for (List<String> step : steps) {
+                if (execute(con, step)) executed.addAll(step);
+            }
+
+            long stuck = countDefaultRows(con);
+            if (stuck > 0) {
+                log.error("{} linha(s) de auditoria continuam na partição {}: fora do alcance da retenção "
+                        + "até a partição do mês delas ser criada", stuck, DEFAULT_PARTITION);
+            }
+        } finally {
+            try (PreparedStatement ps = con.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                ps.setLong(1, LOCK_KEY);
+                ps.execute();
+            }
+        }
+        return executed;
+    }
+
+    private static boolean execute(Connection con, List<String> step) throws SQLException {
+        con.setAutoCommit(false);
+        try (Statement st = con.createStatement()) {
+            for (String sql : step) st.execute(sql);
+            con.commit();
+            return true;
+        } catch (SQLException e) {
+            con.rollback();
+            log.error("Falha na manutenção de partições {}: {}", step, e.getMessage());
+            return false;
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Passos necessários para o mês corrente, dado o conjunto de partições existentes e os meses
+     * que têm linhas na partição default. Cada passo roda numa transação.
+     */
+    List<List<String>> plan(YearMonth current, List<String> existing, Set<YearMonth> inDefault) {
+        List<List<String>> steps = new ArrayList<>();
+
+        Set<YearMonth> months = new TreeSet<>(inDefault);
+        for (int i = 0; i <= monthsAhead; i++) months.add(current.plusMonths(i));
+
+        for (YearMonth month : months) {
+            String name = partitionName(month);
+            if (existing.contains(name)) continue;
+
+            String from = bound(month);
+            String to = bound(month.plusMonths(1));
+            String create = "CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF audit_logs FOR VALUES FROM ('"
+                    + from + "') TO ('" + to + "')";
+            if (!inDefault.contains(month)) {
+                steps.add(List.of(create));
+                continue;
+            }
+
+            // O mês já tem linhas na default: tira a default, cria a partição, move as linhas
+            // e devolve a default (o lock do DETACH segura as inserções até o commit)
+            String range = " WHERE created_at >= '" + from + "' AND created_at < '" + to + "'";
+            steps.add(List.of(
+                    "ALTER TABLE audit_logs DETACH PARTITION " + DEFAULT_PARTITION,
+                    create,
+                    "INSERT INTO audit_logs SELECT * FROM " + DEFAULT_PARTITION + range,
+                    "DELETE FROM " + DEFAULT_PARTITION + range,
+                    "ALTER TABLE audit_logs ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT"
+            ));
+        }
+
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(retentionMonths);
+            for (String name : existing) {
+                YearMonth month = monthOf(name);
+                if (month != null && month.isBefore(oldestKept)) {
+                    steps.add(List.of(dropExpired
+                            ? "DROP TABLE " + name
+                            : "ALTER TABLE audit_logs DETACH PARTITION " + name));
+                }
+            }
+        }
+        return steps;
+    }
+
+    // Início do mês na zona configurada, com offset (timestamptz sem ambiguidade)
+    private String bound(YearMonth month) {
+        return month.atDay(1).atStartOfDay(zone).format(BOUND);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PREFIX + month.format(SUFFIX);
+    }
+
+    // null para partições fora do padrão (ex.: audit_logs_default)
+    static YearMonth monthOf(String partitionName) {
+        if (!partitionName.startsWith(PREFIX)) return null;
+        try {
+            return YearMonth.parse(partitionName.substring(PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean tryLock(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            ps.setLong(1, LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    // Meses (na zona configurada) que têm linhas na partição default
+    private Set<YearMonth> monthsInDefault(Connection con) throws SQLException {
+        Set<YearMonth> months = new TreeSet<>();
+        String sql = "SELECT DISTINCT to_char(created_at AT TIME ZONE ?, 'YYYY-MM') FROM " + DEFAULT_PARTITION;
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setString(1, zone.getId());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) months.add(YearMonth.parse(rs.getString(1)));
+            }
+        }
+        return months;
+    }
+
+    private static long countDefaultRows(Connection con) throws SQLException {
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT count(*) FROM " + DEFAULT_PARTITION)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static List<String> existingPartitions(Connection con) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(LIST_PARTITIONS)) {
+            while (rs.next()) names.add(rs.getString(1));
+        }
+        return names;
+    }
+}
@@ -4,6 +4,7 @@ import com.joaopssouza.fifosystem.domain.entity.AuditLog;
 import com.joaopssouza.fifosystem.domain.entity.User;
 import com.joaopssouza.fifosystem.domain.repository.AuditLogRepository;
 import com.joaopssouza.fifosystem.domain.repository.UserRepository;
+import com.joaopssouza.fifosystem.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -11,42 +12,75 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class AuditService {
 
     private final AuditLogRepository auditLogRepository;
     private final UserRepository userRepository;
+    private final AuditLogWriter auditLogWriter; // Modo de escrita: sync, best-effort ou outbox
 
     // Propagation.REQUIRES_NEW: Garante que o log seja salvo mesmo se a transação principal falhar
     // (Ou use REQUIRED padrão se quiser que o log falhe junto com a operação)
     @Transactional(propagation = Propagation.REQUIRED)
     public void logAction(String action, String details) {
+        AuditLog log = buildLog(currentActor(), action, details);
+
+        if (auditLogWriter.isSync()) {
+            auditLogRepository.save(log);
+        } else {
+            auditLogWriter.submit(List.of(log));
+        }
+    }
+
+    // Versão em lote: resolve o usuário uma vez e grava todas as linhas num único batch JDBC
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void logActions(String action, List<String> detailsList) {
+        if (detailsList.isEmpty()) return;
+
+        Actor actor = currentActor();
+        List<AuditLog> logs = detailsList.stream()
+                .map(details -> buildLog(actor, action, details))
+                .toList();
+
+        if (auditLogWriter.isSync()) {
+            auditLogWriter.writeBatch(logs);
+        } else {
+            auditLogWriter.submit(logs);
+        }
+    }
+
+    private record Actor(String username, String fullname) {}
+
+    // Usuário logado (o nome vem do principal; só busca no banco se não estiver lá)
+    private Actor currentActor() {
         String username = "Sistema"; // Fallback
         String fullname = "Automático";
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        
+
         if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
             username = auth.getName();
-            // Tenta buscar o Full Name no repositório de usuários
-            userRepository.findByUsername(username).ifPresent(user -> {
-                if (user.getFullName() != null && !user.getFullName().isBlank()) {
-                    // Seta o fullName real
-                    // Usamos array/holder para modificar variável local dentro do lambda
-                }
-            });
-            // Se não encontrado, mantém fallback com username
-            fullname = userRepository.findByUsername(username).map(User::getFullName).orElse(username);
+            if (auth.getPrincipal() instanceof AuthenticatedUser user && user.getFullName() != null) {
+                fullname = user.getFullName();
+            } else {
+                // Se não encontrado, mantém fallback com username
+                fullname = userRepository.findByUsername(username).map(User::getFullName).orElse(username);
+            }
         }
+        return new Actor(username, fullname);
+    }
 
-        AuditLog log = AuditLog.builder()
-                .username(username)
-                .userFullname(fullname)
+    private static AuditLog buildLog(Actor actor, String action, String details) {
+        return AuditLog.builder()
+                .username(actor.username())
+                .userFullname(actor.fullname())
                 .action(action)
                 .details(details)
+                .createdAt(LocalDateTime.now()) // Momento da ação (a escrita pode ser posterior)
                 .build();
-
-        auditLogRepository.save(log);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.joaopssouza.fifosystem.domain.entity.User;
+import com.joaopssouza.fifosystem.security.UserPrincipalCache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache de segundo nível do Hibernate (regiões em hibernate-cache.conf): despejo explícito
+ * nas escritas de usuário e estatísticas de acerto/erro por região.
+ */
+@Service
+@RequiredArgsConstructor
+public class EntityCacheService {
+
+    static final String USER_QUERIES = "user-queries";
+    private static final List<String> REGIONS = List.of(
+            "users", "roles", "role-permissions", "permissions", USER_QUERIES, "role-queries");
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserPrincipalCache userPrincipalCache;
+
+    // Remove o usuário (e as consultas por username) de todos os caches. Repete após o commit:
+    // uma leitura concorrente antes dele poderia recolocar a versão antiga no cache.
+    public void evictUser(Long id, String username) {
+        Runnable evict = () -> {
+            Cache cache = sessionFactory().getCache();
+            if (id != null) cache.evictEntityData(User.class, id);
+            cache.evictQueryRegion(USER_QUERIES);
+            userPrincipalCache.evict(username);
+        };
+        evict.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Statistics statistics = sessionFactory().getStatistics();
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : REGIONS) {
+            CacheRegionStatistics regionStats = statistics.getCacheRegionStatistics(region);
+            if (regionStats == null) continue;
+            regions.put(region, Map.of(
+                    "hits", regionStats.getHitCount(),
+                    "misses", regionStats.getMissCount(),
+                    "puts", regionStats.getPutCount()));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("secondLevel", Map.of(
+                "hits", statistics.getSecondLevelCacheHitCount(),
+                "misses", statistics.getSecondLevelCacheMissCount(),
+                "puts", statistics.getSecondLevelCachePutCount()));
+        result.put("queries", Map.of(
+                "hits", statistics.getQueryCacheHitCount(),
+                "misses", statistics.getQueryCacheMissCount(),
+                "puts", statistics.getQueryCachePutCount()));
+        result.put("regions", regions);
+        result.put("userPrincipals", userPrincipalCache.stats());
+        return result;
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
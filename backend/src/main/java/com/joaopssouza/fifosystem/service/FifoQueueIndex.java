@@ -0,0 +1,204 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.joaopssouza.fifosystem.domain.repository.PackageRepository;
+import com.joaopssouza.fifosystem.dto.PackageSummaryDTO;
+import com.joaopssouza.fifosystem.dto.QueuePositionDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.Ordered;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila FIFO mantida em memória: uma skip list por buffer e uma por (buffer, rua),
+ * ordenadas por (entryTimestamp, id) — a mesma ordem do banco. Atualizada pelos
+ * PackageQueueEvent e reconstruída do banco na subida da aplicação e a cada mudança
+ * feita por outra instância (RemoteQueueChangeEvent, ver QueueSync), permitindo
+ * responder "próximo a sair", posição e profundidade sem consultar o banco.
+ *
+ * Escritas são serializadas no lock do índice; leituras não bloqueiam. A reconstrução
+ * monta um estado novo e troca a referência: leitores nunca veem o índice pela metade.
+ */
+@Service
+@RequiredArgsConstructor
+public class FifoQueueIndex implements SmartInitializingSingleton {
+
+    private static final String PENDENTE = "PENDENTE";
+
+    private final PackageRepository packageRepository;
+
+    private volatile State state = new State();
+
+    // Antes de o servidor web aceitar requisições: nenhum evento da fila pode chegar ainda
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    // Consulta e troca sob o mesmo lock do onQueueEvent: um evento que chega durante a
+    // consulta espera e é aplicado por cima, em vez de ser apagado pela troca
+    public synchronized void rebuild() {
+        List<PackageSummaryDTO> rows = packageRepository.findSummariesByBufferNot(PENDENTE);
+
+        State fresh = new State();
+        rows.forEach(fresh::add);
+        state = fresh;
+    }
+
+    // Outra instância alterou a fila: o evento não diz o quê, então relê tudo do banco
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onRemoteQueueChange(RemoteQueueChangeEvent event) {
+        rebuild();
+    }
+
+    // Mesma prioridade do QueueStatsEngine: o índice já está atualizado quando o broadcast roda
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onQueueEvent(PackageQueueEvent event) {
+        State state = this.state;
+        PackageSummaryDTO current = state.byTrackingId.get(event.trackingId());
+        if (current != null) state.remove(current);
+
+        // EXITED só remove; ENTERED e MOVED (re)inserem com os dados atuais
+        if (event.type() != PackageQueueEvent.Type.EXITED && event.buffer() != null
+                && !PENDENTE.equals(event.buffer())) {
+            state.add(new PackageSummaryDTO(event.id(), event.trackingId(), event.buffer(), event.rua(),
+                    event.profileType(), event.profileValue(), event.entryTimestamp()));
+        }
+    }
+
+    // Os N próximos a sair do buffer (ou da rua dentro do buffer)
+    public List<PackageSummaryDTO> next(String buffer, String rua, int limit) {
+        if (limit <= 0 || limit > PackageService.MAX_HEAD_SIZE) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e " + PackageService.MAX_HEAD_SIZE + ".");
+        }
+        if (buffer == null || !PackageService.QUEUE_BUFFERS.contains(buffer)) {
+            throw new IllegalArgumentException("Buffer deve ser RTS, EHA ou SAL");
+        }
+        Lane lane = state.lane(buffer, (rua == null || rua.isBlank()) ? null : rua);
+        if (lane == null) return List.of();
+
+        List<PackageSummaryDTO> items = new ArrayList<>(Math.min(limit, 16));
+        for (PackageSummaryDTO item : lane.items.values()) {
+            if (items.size() >= limit) break;
+            items.add(item);
+        }
+        return items;
+    }
+
+    // Custo proporcional à posição (percorre a skip list até o pacote)
+    public Optional<QueuePositionDTO> position(String trackingId) {
+        State state = this.state;
+        PackageSummaryDTO item = state.byTrackingId.get(trackingId);
+        if (item == null) return Optional.empty();
+
+        QueueKey key = QueueKey.of(item);
+        Lane bufferLane = state.buffers.get(item.buffer());
+        Lane ruaLane = state.lane(item.buffer(), item.rua());
+        if (bufferLane == null) return Optional.empty(); // Removido entre as duas leituras
+
+        long ruaPosition = ruaLane != null ? ruaLane.items.headMap(key).size() + 1 : 0;
+        return Optional.of(new QueuePositionDTO(
+                item.trackingId(), item.buffer(), item.rua(),
+                bufferLane.items.headMap(key).size() + 1, bufferLane.size.get(),
+                ruaPosition, ruaLane != null ? ruaLane.size.get() : 0));
+    }
+
+    // Profundidade de todos os buffers e ruas: { "RTS": { "total": 10, "ruas": { "RUA-01": 4, ... } } }
+    public Map<String, Object> depths() {
+        State state = this.state;
+        Map<String, Object> result = new TreeMap<>();
+        state.buffers.forEach((buffer, lane) -> {
+            Map<String, Long> perRua = new TreeMap<>();
+            state.ruas.getOrDefault(buffer, Map.of()).forEach((rua, ruaLane) -> perRua.put(rua, ruaLane.size.get()));
+            result.put(buffer, Map.of("total", lane.size.get(), "ruas", perRua));
+        });
+        return result;
+    }
+
+    // Índices de um momento da fila; trocado por inteiro na reconstrução
+    private static class State {
+        final Map<String, Lane> buffers = new ConcurrentHashMap<>();
+        final Map<String, Map<String, Lane>> ruas = new ConcurrentHashMap<>();
+        final Map<String, PackageSummaryDTO> byTrackingId = new ConcurrentHashMap<>();
+
+        Lane lane(String buffer, String rua) {
+            if (buffer == null) return null;
+            if (rua == null) return buffers.get(buffer);
+            Map<String, Lane> bufferRuas = ruas.get(buffer);
+            return bufferRuas != null ? bufferRuas.get(rua) : null;
+        }
+
+        // Chamado sempre sob o lock do índice (ou num estado ainda não publicado)
+        void add(PackageSummaryDTO item) {
+            QueueKey key = QueueKey.of(item);
+            byTrackingId.put(item.trackingId(), item);
+            buffers.computeIfAbsent(item.buffer(), b -> new Lane()).put(key, item);
+            if (item.rua() != null) {
+                ruas.computeIfAbsent(item.buffer(), b -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(item.rua(), r -> new Lane())
+                        .put(key, item);
+            }
+        }
+
+        // Chamado sempre sob o lock do índice
+        void remove(PackageSummaryDTO item) {
+            QueueKey key = QueueKey.of(item);
+            byTrackingId.remove(item.trackingId());
+            Lane bufferLane = buffers.get(item.buffer());
+            if (bufferLane != null) bufferLane.remove(key);
+            Lane ruaLane = lane(item.buffer(), item.rua());
+            if (ruaLane != null) ruaLane.remove(key);
+        }
+    }
+
+    private static class Lane {
+        final ConcurrentSkipListMap<QueueKey, PackageSummaryDTO> items = new ConcurrentSkipListMap<>();
+        // size() da skip list é O(n); a profundidade é mantida à parte
+        final AtomicLong size = new AtomicLong();
+
+        void put(QueueKey key, PackageSummaryDTO item) {
+            if (items.put(key, item) == null) size.incrementAndGet();
+        }
+
+        void remove(QueueKey key) {
+            if (items.remove(key) != null) size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Chave primitiva de ordenação: entrada em microssegundos e id. Sem timestamp
+     * o pacote vai para o fim, como no ORDER BY ... ASC do PostgreSQL (NULLS LAST).
+     */
+    record QueueKey(long entryMicros, long id) implements Comparable<QueueKey> {
+
+        static QueueKey of(PackageSummaryDTO item) {
+            return new QueueKey(toMicros(item.entryTimestamp()), item.id() != null ? item.id() : 0L);
+        }
+
+        private static long toMicros(LocalDateTime timestamp) {
+            if (timestamp == null) return Long.MAX_VALUE;
+            return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+        }
+
+        @Override
+        public int compareTo(QueueKey other) {
+            int byEntry = Long.compare(entryMicros, other.entryMicros);
+            return byEntry != 0 ? byEntry : Long.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Suporte ao header Idempotency-Key nas mutações da fila (scanners que repetem a
+ * requisição quando o Wi-Fi falha). A primeira requisição executa e tem a resposta
+ * gravada; as repetições com a mesma chave recebem a mesma resposta sem refazer
+ * validação, consultas e auditoria. Modos (idempotency.store):
+ * - memory: cache limitado com TTL, válido para uma instância;
+ * - jdbc: a chave é reservada na tabela idempotency_keys (V12), compartilhada
+ *   entre instâncias; o cache em memória continua na frente para as repetições locais.
+ *   A reserva vale só por idempotency.claim-lease-ms e passa a valer o TTL quando a
+ *   resposta é gravada: se a instância cair no meio (ou a gravação falhar), a chave
+ *   volta a ser aceita logo, em vez de responder 409 até o TTL acabar.
+ *
+ * Respostas 5xx e 409 (conflito transitório) não são gravadas: a repetição executa de novo.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    public enum Mode { MEMORY, JDBC }
+
+    // Reserva a chave por um lease curto; uma reserva expirada pode ser retomada por outra requisição.
+    // Prazos pelo relógio do banco, o mesmo das comparações com now()
+    private static final String CLAIM = """
+            INSERT INTO idempotency_keys (key_hash, fingerprint, created_at, expires_at)
+            VALUES (?, ?, now(), now() + ? * interval '1 millisecond')
+            ON CONFLICT (key_hash) DO UPDATE
+               SET fingerprint = EXCLUDED.fingerprint, status = NULL, json = NULL, body = NULL,
+                   created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at
+             WHERE idempotency_keys.expires_at < now()
+            """;
+    // Grava a resposta e estende a linha ao TTL completo
+    private static final String COMPLETE = """
+            UPDATE idempotency_keys SET status = ?, json = ?, body = ?,
+                   expires_at = now() + ? * interval '1 millisecond'
+             WHERE key_hash = ?
+            """;
+    private static final String RELEASE = "DELETE FROM idempotency_keys WHERE key_hash = ?";
+    private static final String FIND =
+            "SELECT fingerprint, status, json, body FROM idempotency_keys WHERE key_hash = ? AND expires_at >= now()";
+
+    // Resposta gravada: status e corpo já serializado (JSON ou texto puro)
+    public record StoredResponse(String fingerprint, int status, boolean json, String body) {
+
+        ResponseEntity<?> toResponseEntity() {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(status).header(REPLAYED_HEADER, "true");
+            if (body == null) return builder.build();
+            return builder.contentType(json ? MediaType.APPLICATION_JSON : MediaType.TEXT_PLAIN).body(body);
+        }
+    }
+
+    // Marca a execução que terminou sem resposta gravável (as repetições executam de novo)
+    private static final class NotStored extends RuntimeException {
+        NotStored() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+    private final Mode mode;
+    private final Duration ttl;
+    private final long waitMs;
+    private final long leaseMs;
+    private final Cache<String, CompletableFuture<StoredResponse>> responses;
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate,
+                              JsonMapper jsonMapper,
+                              @Value("${idempotency.store:memory}") String mode,
+                              @Value("${idempotency.max-size:10000}") long maxSize,
+                              @Value("${idempotency.ttl-minutes:1440}") long ttlMinutes,
+                              @Value("${idempotency.in-flight-wait-ms:10000}") long waitMs,
+                              @Value("${idempotency.claim-lease-ms:30000}") long leaseMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonMapper = jsonMapper;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase());
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.waitMs = waitMs;
+        this.leaseMs = leaseMs;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Executa a ação uma única vez por (usuário, operação, chave). Sem chave, apenas executa.
+     * O request entra na impressão digital: a mesma chave com outro corpo é rejeitada (422).
+     * A impressão usa o JSON do request com as chaves de mapas ordenadas, então a repetição
+     * de um corpo idêntico com os campos em outra ordem continua sendo a mesma requisição.
+     */
+    public ResponseEntity<?> execute(String key, String operation, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) return action.get();
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(HEADER + " deve ter até " + MAX_KEY_LENGTH + " caracteres.");
+        }
+
+        String keyHash = sha256(currentUsername() + "\n" + operation + "\n" + key);
+        String fingerprint = sha256(operation + "\n" + canonical(request));
+
+        // Em geral uma volta só; repete quando a execução anterior não gravou resposta
+        while (true) {
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> existing = responses.asMap().putIfAbsent(keyHash, mine);
+            if (existing != null) {
+                ResponseEntity<?> replay = await(existing, fingerprint);
+                if (replay != null) return replay;
+                continue;
+            }
+
+            boolean claimed;
+            try {
+                claimed = mode != Mode.JDBC || claim(keyHash, fingerprint);
+            } catch (RuntimeException e) {
+                releaseLocal(keyHash, mine);
+                throw e;
+            }
+            if (!claimed) {
+                // Outra instância é dona da chave
+                ResponseEntity<?> replay = awaitRemote(keyHash, fingerprint, mine);
+                if (replay != null) return replay;
+                continue;
+            }
+            return run(keyHash, fingerprint, mine, action);
+        }
+    }
+
+    private ResponseEntity<?> run(String keyHash, String fingerprint, CompletableFuture<StoredResponse> mine,
+                                  Supplier<ResponseEntity<?>> action) {
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(keyHash, mine);
+            throw e;
+        }
+
+        int status = response.getStatusCode().value();
+        if (status >= 500 || status == HttpStatus.CONFLICT.value()) {
+            release(keyHash, mine);
+            return response;
+        }
+
+        StoredResponse stored;
+        try {
+            stored = store(fingerprint, status, response.getBody());
+        } catch (RuntimeException e) {
+            log.warn("Resposta não serializável para idempotência ({}): {}", response.getStatusCode(), e.getMessage());
+            release(keyHash, mine);
+            return response;
+        }
+        mine.complete(stored);
+
+        if (mode == Mode.JDBC) {
+            try {
+                jdbcTemplate.update(COMPLETE, stored.status(), stored.json(), stored.body(), ttl.toMillis(), keyHash);
+            } catch (RuntimeException e) {
+                // A operação já foi confirmada; outras instâncias veem a chave "em processamento" até o lease expirar
+                log.warn("Falha ao gravar resposta idempotente: {}", e.getMessage());
+            }
+        }
+        return response;
+    }
+
+    // null = execução anterior não gravou resposta (quem chamou tenta de novo)
+    private ResponseEntity<?> await(CompletableFuture<StoredResponse> pending, String fingerprint) {
+        StoredResponse stored;
+        try {
+            stored = pending.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return inFlight();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inFlight();
+        }
+        return replay(stored, fingerprint);
+    }
+
+    // Consulta a tabela até a outra instância gravar a resposta (ou o tempo acabar)
+    private ResponseEntity<?> awaitRemote(String keyHash, String fingerprint, CompletableFuture<StoredResponse> mine) {
+        long deadline = System.currentTimeMillis() + waitMs;
+        try {
+            while (true) {
+                List<StoredResponse> rows = jdbcTemplate.query(FIND, (rs, i) -> new StoredResponse(
+                        rs.getString("fingerprint"), rs.getInt("status"), rs.getBoolean("json"), rs.getString("body")),
+                        keyHash);
+                if (rows.isEmpty()) return null; // Liberada (ou expirou): tenta reservar de novo
+
+                StoredResponse stored = rows.getFirst();
+                if (!stored.fingerprint().equals(fingerprint)) return mismatch();
+                if (stored.status() != 0) {
+                    mine.complete(stored); // Repetições seguintes nesta instância saem do cache
+                    return stored.toResponseEntity();
+                }
+                if (System.currentTimeMillis() >= deadline) return inFlight();
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inFlight();
+        } finally {
+            if (!mine.isDone()) releaseLocal(keyHash, mine);
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) return mismatch();
+        return stored.toResponseEntity();
+    }
+
+    private boolean claim(String keyHash, String fingerprint) {
+        return jdbcTemplate.update(CLAIM, keyHash, fingerprint, leaseMs) == 1;
+    }
+
+    // Libera a reserva (local e, no modo jdbc, a linha da tabela) sem gravar resposta
+    private void release(String keyHash, CompletableFuture<StoredResponse> mine) {
+        try {
+            if (mode == Mode.JDBC) jdbcTemplate.update(RELEASE, keyHash);
+        } finally {
+            releaseLocal(keyHash, mine);
+        }
+    }
+
+    private void releaseLocal(String keyHash, CompletableFuture<StoredResponse> mine) {
+        responses.asMap().remove(keyHash, mine);
+        mine.completeExceptionally(new NotStored());
+    }
+
+    private StoredResponse store(String fingerprint, int status, Object body) {
+        if (body == null) return new StoredResponse(fingerprint, status, false, null);
+        if (body instanceof String text) return new StoredResponse(fingerprint, status, false, text);
+        return new StoredResponse(fingerprint, status, true, jsonMapper.writeValueAsString(body));
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        if (mode != Mode.JDBC) return;
+        int removed = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < now()");
+        if (removed > 0) log.debug("{} chaves de idempotência expiradas removidas", removed);
+    }
+
+    private static ResponseEntity<?> inFlight() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("Requisição com esta " + HEADER + " ainda em processamento. Tente novamente.");
+    }
+
+    private static ResponseEntity<?> mismatch() {
+        return ResponseEntity.unprocessableContent()
+                .body(HEADER + " já utilizada com outra requisição.");
+    }
+
+    private String canonical(Object request) {
+        return jsonMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS).writeValueAsString(request);
+    }
+
+    private static String currentUsername() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : "";
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.joaopssouza.fifosystem.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco da paginação por keyset: base64url("timestamp|id").
+ * Usado pela fila (entry_timestamp, id) e pela auditoria (created_at, id).
+ * timestamp nulo (entry_timestamp é opcional) vira "|id": a fila ordena NULLS LAST.
+ */
+public record KeysetCursor(LocalDateTime timestamp, long id) {
+
+    public String encode() {
+        String raw = (timestamp != null ? timestamp.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 2) throw new IllegalArgumentException("Cursor inválido.");
+            LocalDateTime timestamp = parts[0].isEmpty() ? null : LocalDateTime.parse(parts[0]);
+            return new KeysetCursor(timestamp, Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido.");
+        }
+    }
+}
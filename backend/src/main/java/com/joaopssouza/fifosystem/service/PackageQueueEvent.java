@@ -0,0 +1,52 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.joaopssouza.fifosystem.domain.entity.ProductPackage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de domínio publicado pelo PackageService a cada mutação da fila.
+ * Os ouvintes (@TransactionalEventListener) só o recebem após o commit.
+ */
+public record PackageQueueEvent(
+    Type type,
+    Long id,
+    String trackingId,
+    String buffer,
+    String rua,
+    String previousRua, // Apenas para MOVED
+    String profileType,
+    Integer profileValue,
+    LocalDateTime entryTimestamp
+) {
+
+    public enum Type {
+        ENTERED("package_entered"),
+        EXITED("package_exited"),
+        MOVED("package_moved");
+
+        private final String wireName;
+
+        Type(String wireName) {
+            this.wireName = wireName;
+        }
+
+        // Nome usado nas mensagens do WebSocket
+        public String wireName() {
+            return wireName;
+        }
+    }
+
+    public static PackageQueueEvent of(Type type, ProductPackage pkg, String previousRua) {
+        return new PackageQueueEvent(
+                type,
+                pkg.getId(),
+                pkg.getTrackingId(),
+                pkg.getBuffer(),
+                pkg.getRua(),
+                previousRua,
+                pkg.getProfileType(),
+                pkg.getProfileValue(),
+                pkg.getEntryTimestamp());
+    }
+}
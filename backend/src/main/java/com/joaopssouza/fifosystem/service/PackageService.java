@@ -2,13 +2,28 @@ package com.joaopssouza.fifosystem.service;
 
 import com.joaopssouza.fifosystem.domain.entity.ProductPackage;
 import com.joaopssouza.fifosystem.domain.repository.PackageRepository;
+import com.joaopssouza.fifosystem.dto.BatchItemResult;
 import com.joaopssouza.fifosystem.dto.PackageEntryRequest;
+import com.joaopssouza.fifosystem.dto.PackageMoveBatchRequest;
+import com.joaopssouza.fifosystem.dto.PackageMoveDTO;
+import com.joaopssouza.fifosystem.dto.PackagePageResponse;
+import com.joaopssouza.fifosystem.dto.PackageSummaryDTO;
+import com.joaopssouza.fifosystem.dto.QueueHeadDTO;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -16,61 +31,94 @@ public class PackageService {
 
     private final PackageRepository packageRepository;
     private final AuditService auditService; // Injeção do serviço de auditoria
+    private final ApplicationEventPublisher eventPublisher; // Eventos da fila (entregues após o commit)
+
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_HEAD_SIZE = 100;
+    static final List<String> QUEUE_BUFFERS = List.of("RTS", "EHA", "SAL");
 
     // Agora lista apenas o que NÃO é PENDENTE (ou seja, itens reais na fila)
-    public List<ProductPackage> findAll() {
-        return packageRepository.findByBufferNotOrderByEntryTimestampAsc("PENDENTE");
+    public List<PackageSummaryDTO> findAll() {
+        return packageRepository.findSummariesByBufferNot("PENDENTE");
+    }
+
+    // Paginação por cursor: custo constante por página, independente do tamanho da fila
+    public PackagePageResponse findPage(String buffer, String rua, String cursor, int size) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Tamanho de página deve estar entre 1 e " + MAX_PAGE_SIZE + ".");
+        }
+        String bufferFilter = (buffer == null || buffer.isBlank()) ? null : buffer;
+        String ruaFilter = (rua == null || rua.isBlank()) ? null : rua;
+
+        // Busca um item a mais para saber se existe próxima página
+        Limit limit = Limit.of(size + 1);
+        List<PackageSummaryDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = packageRepository.findSummaryPage("PENDENTE", bufferFilter, ruaFilter, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = after.timestamp() == null
+                    ? packageRepository.findSummaryPageAfterUntimed("PENDENTE", bufferFilter, ruaFilter,
+                            after.id(), limit)
+                    : packageRepository.findSummaryPageAfter("PENDENTE", bufferFilter, ruaFilter,
+                            after.timestamp(), after.id(), limit);
+        }
+
+        if (rows.size() <= size) {
+            return new PackagePageResponse(rows, null);
+        }
+        List<PackageSummaryDTO> items = rows.subList(0, size);
+        PackageSummaryDTO last = items.get(size - 1);
+        return new PackagePageResponse(items, new KeysetCursor(last.entryTimestamp(), last.id()).encode());
+    }
+
+    // Itens mais antigos de cada buffer (ou só do buffer/rua pedidos): uma sondagem de índice por buffer
+    public List<QueueHeadDTO> findHead(String buffer, String rua, int limit) {
+        if (limit <= 0 || limit > MAX_HEAD_SIZE) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e " + MAX_HEAD_SIZE + ".");
+        }
+        String ruaFilter = (rua == null || rua.isBlank()) ? null : rua;
+
+        List<String> buffers;
+        if (buffer == null || buffer.isBlank()) {
+            buffers = QUEUE_BUFFERS;
+        } else if (QUEUE_BUFFERS.contains(buffer)) {
+            buffers = List.of(buffer);
+        } else {
+            throw new IllegalArgumentException("Buffer deve ser RTS, EHA ou SAL");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<QueueHeadDTO> heads = new ArrayList<>(buffers.size());
+        for (String buf : buffers) {
+            List<PackageSummaryDTO> items = ruaFilter == null
+                    ? packageRepository.findHeadByBuffer(buf, Limit.of(limit))
+                    : packageRepository.findHeadByBufferAndRua(buf, ruaFilter, Limit.of(limit));
+
+            long oldestAge = (items.isEmpty() || items.get(0).entryTimestamp() == null) ? 0
+                    : Math.max(0, Duration.between(items.get(0).entryTimestamp(), now).getSeconds());
+            heads.add(new QueueHeadDTO(buf, ruaFilter, oldestAge, items));
+        }
+        return heads;
     }
 
     // Regra de Negócio: Entrada de Pacote
     @Transactional
     public ProductPackage registerEntry(PackageEntryRequest request) {
-        
-        // 1. Busca Global: Verifica se o ID existe (Ativo OU Deletado)
-        ProductPackage pkg = packageRepository.findByTrackingIdGlobally(request.trackingId());
-
-        // Se existe e está ATIVO (deletedAt == null), impede a entrada duplicada
-        if (pkg != null && pkg.getDeletedAt() == null) {
-            throw new IllegalArgumentException("O Tracking ID " + request.trackingId() + " já está na fila.");
-        }
 
         // Lógica de Perfil (Extraída para reutilizar)
-        String profileCode = "N/A";
-        int profileValue = 0;
+        String profileCode = resolveProfileCode(request);
+        int profileValue = profileValueOf(profileCode);
 
-        if (!"SAL".equals(request.buffer())) {
-            if (request.profile() == null) {
-                throw new IllegalArgumentException("Perfil é obrigatório para buffers RTS e EHA.");
-            }
-            profileCode = request.profile();
-            profileValue = switch (profileCode) {
-                case "P" -> 250;
-                case "M" -> 80;
-                case "G" -> 10;
-                default -> 0;
-            };
-        }
+        // 1-3. Criar Novo ou Reativar Existente num único INSERT ... ON CONFLICT (sem SELECT antes).
+        // Corridas entre scanners são resolvidas pelo banco: só um deles recebe a linha de volta.
+        ProductPackage savedPackage = packageRepository.upsertEntry(request.trackingId(), request.buffer(),
+                request.rua(), profileCode, profileValue, LocalDateTime.now());
 
-        // 2. Decisão: Criar Novo ou Reativar Existente?
-        if (pkg == null) {
-            // CENÁRIO A: Nunca existiu -> Cria um novo objeto
-            pkg = ProductPackage.builder()
-                    .trackingId(request.trackingId())
-                    .createdAt(LocalDateTime.now()) // Apenas para novos
-                    .build();
-        } 
-        
-        // CENÁRIO B (Reativação) ou A (Continuação da criação):
-        // Atualizamos os dados do objeto (seja ele novo ou recuperado do lixo)
-        pkg.setBuffer(request.buffer());
-        pkg.setRua(request.rua());
-        pkg.setProfileType(profileCode);
-        pkg.setProfileValue(profileValue);
-        pkg.setEntryTimestamp(LocalDateTime.now());
-        pkg.setDeletedAt(null); // <--- O Pulo do Gato: "Ressuscita" o item se estava deletado
-
-        // 3. Persistência (Save funciona como Update se o ID já existe)
-        ProductPackage savedPackage = packageRepository.save(pkg);
+        // Nenhuma linha: o pacote existe e está ATIVO (deletedAt == null)
+        if (savedPackage == null) {
+            throw new IllegalArgumentException("O Tracking ID " + request.trackingId() + " já está na fila.");
+        }
 
         // 4. Auditoria
         String details = String.format("Pacote %s entrou no buffer %s na rua %s (Perfil: %s)", 
@@ -81,53 +129,235 @@ public class PackageService {
         
         auditService.logAction("ENTRADA", details);
 
+        eventPublisher.publishEvent(PackageQueueEvent.of(PackageQueueEvent.Type.ENTERED, savedPackage, null));
+
         return savedPackage;
     }
 
     // Regra de Negócio: Saída de Pacote
+    // Um único UPDATE ... RETURNING: verifica, marca a saída e devolve os dados para a auditoria
     @Transactional
     public void registerExit(Long id) {
-        // 1. Verificar existência antes de apagar
-        ProductPackage pkg = packageRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Pacote não encontrado com ID: " + id));
+        ProductPackage pkg = packageRepository.exitById(id);
+        if (pkg == null) {
+            throw new IllegalArgumentException("Pacote não encontrado com ID: " + id);
+        }
+        logExit(pkg);
+    }
 
-        // 2. Remover do banco
-        packageRepository.deleteById(id);
+    // Saída pelo Tracking ID (leitor de código de barras), também em um único comando.
+    // false = nenhuma linha ativa com esse Tracking ID (quem chamou verifica o motivo)
+    @Transactional
+    public boolean registerExitByTrackingId(String trackingId) {
+        ProductPackage pkg = packageRepository.exitByTrackingId(trackingId);
+        if (pkg == null) return false;
+        logExit(pkg);
+        return true;
+    }
 
-        // 3. Auditoria Automática (usamos os dados do pacote recuperado antes de
-        // apagar)
+    private void logExit(ProductPackage pkg) {
         String details = String.format("Pacote %s saiu do buffer %s",
                 pkg.getTrackingId(), pkg.getBuffer());
 
         auditService.logAction("SAIDA", details);
+
+        eventPublisher.publishEvent(PackageQueueEvent.of(PackageQueueEvent.Type.EXITED, pkg, null));
     }
 
     @Transactional
-    public ProductPackage registerMove(Long id, String newRua) {
-        // 1. Buscar o pacote (lança erro se não existir)
-        ProductPackage pkg = packageRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Pacote não encontrado com ID: " + id));
-
-        String oldRua = pkg.getRua();
+    public PackageMoveDTO registerMove(Long id, String newRua) {
+        // 1. Atualiza e devolve a rua anterior no mesmo comando
+        PackageMoveDTO moved = packageRepository.moveRua(id, newRua);
 
-        // 2. Verificar se houve mudança real (otimização)
-        if (oldRua.equals(newRua)) {
-            return pkg; // Nada a fazer
+        // 2. Nenhuma linha: pacote inexistente ou já está nessa rua (nada a fazer)
+        if (moved == null) {
+            ProductPackage pkg = packageRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Pacote não encontrado com ID: " + id));
+            return new PackageMoveDTO(pkg.getId(), pkg.getTrackingId(), pkg.getBuffer(), pkg.getRua(), pkg.getRua(),
+                    pkg.getProfileType(), pkg.getProfileValue(), pkg.getEntryTimestamp(), pkg.getVersion());
         }
 
-        // 3. Atualizar o estado (O Hibernate gerencia o UPDATE automaticamente no final
-        // da transação)
-        pkg.setRua(newRua);
-        // pkg.setUpdatedAt(LocalDateTime.now()); // O Hibernate já faz isso via
-        // @UpdateTimestamp
-
-        // 4. Auditoria
+        // 3. Auditoria
         String details = String.format("Pacote %s movido da rua %s para %s",
-                pkg.getTrackingId(), oldRua, newRua);
+                moved.trackingId(), moved.previousRua(), moved.rua());
 
         auditService.logAction("MOVIMENTACAO", details);
 
-        return pkg;
+        eventPublisher.publishEvent(new PackageQueueEvent(PackageQueueEvent.Type.MOVED, moved.id(),
+                moved.trackingId(), moved.buffer(), moved.rua(), moved.previousRua(),
+                moved.profileType(), moved.profileValue(), moved.entryTimestamp()));
+
+        return moved;
+    }
+
+    // --- Operações em lote (scanner de pallets) ---
+    // Uma única consulta IN resolve todos os Tracking IDs; as escritas saem em
+    // batch JDBC no flush e a auditoria vira um único insert multi-linha.
+
+    @Transactional
+    public List<BatchItemResult> registerEntryBatch(List<PackageEntryRequest> requests) {
+        Map<String, ProductPackage> existing = findAllGlobally(requests.stream().map(PackageEntryRequest::trackingId).toList());
+
+        List<BatchItemResult> results = new ArrayList<>();
+        List<ProductPackage> toSave = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (PackageEntryRequest request : requests) {
+            String trackingId = request.trackingId();
+            if (!seen.add(trackingId)) {
+                results.add(BatchItemResult.error(trackingId, "Tracking ID repetido no lote."));
+                continue;
+            }
+
+            ProductPackage pkg = existing.get(trackingId);
+            if (pkg != null && pkg.getDeletedAt() == null) {
+                results.add(BatchItemResult.error(trackingId, "O Tracking ID " + trackingId + " já está na fila."));
+                continue;
+            }
+
+            String profileCode;
+            try {
+                profileCode = resolveProfileCode(request);
+            } catch (IllegalArgumentException e) {
+                results.add(BatchItemResult.error(trackingId, e.getMessage()));
+                continue;
+            }
+
+            if (pkg == null) {
+                pkg = ProductPackage.builder()
+                        .trackingId(trackingId)
+                        .createdAt(now)
+                        .build();
+            }
+            pkg.setBuffer(request.buffer());
+            pkg.setRua(request.rua());
+            pkg.setProfileType(profileCode);
+            pkg.setProfileValue(profileValueOf(profileCode));
+            pkg.setEntryTimestamp(now);
+            pkg.setDeletedAt(null);
+
+            toSave.add(pkg);
+            results.add(BatchItemResult.ok(trackingId, "Entrada registrada."));
+        }
+
+        List<ProductPackage> saved = packageRepository.saveAll(toSave);
+
+        auditService.logActions("ENTRADA", saved.stream()
+                .map(p -> String.format("Pacote %s entrou no buffer %s na rua %s (Perfil: %s)",
+                        p.getTrackingId(), p.getBuffer(), p.getRua(), p.getProfileType()))
+                .toList());
+
+        saved.forEach(p -> eventPublisher.publishEvent(PackageQueueEvent.of(PackageQueueEvent.Type.ENTERED, p, null)));
+
+        return results;
+    }
+
+    @Transactional
+    public List<BatchItemResult> registerExitBatch(List<String> trackingIds) {
+        Map<String, ProductPackage> existing = findAllGlobally(trackingIds);
+
+        List<BatchItemResult> results = new ArrayList<>();
+        List<ProductPackage> toExit = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (String trackingId : trackingIds) {
+            if (!seen.add(trackingId)) {
+                results.add(BatchItemResult.error(trackingId, "Tracking ID repetido no lote."));
+                continue;
+            }
+
+            ProductPackage pkg = existing.get(trackingId);
+            if (pkg == null) {
+                results.add(BatchItemResult.error(trackingId, "Pacote não encontrado."));
+            } else if (pkg.getDeletedAt() != null) {
+                results.add(BatchItemResult.error(trackingId, "Item já saiu da fila."));
+            } else {
+                toExit.add(pkg);
+                results.add(BatchItemResult.ok(trackingId, "Saída registrada."));
+            }
+        }
+
+        // Soft delete via @SQLDelete, agrupado em batch no flush
+        packageRepository.deleteAll(toExit);
+
+        auditService.logActions("SAIDA", toExit.stream()
+                .map(p -> String.format("Pacote %s saiu do buffer %s", p.getTrackingId(), p.getBuffer()))
+                .toList());
+
+        toExit.forEach(p -> eventPublisher.publishEvent(PackageQueueEvent.of(PackageQueueEvent.Type.EXITED, p, null)));
+
+        return results;
+    }
+
+    @Transactional
+    public List<BatchItemResult> registerMoveBatch(List<PackageMoveBatchRequest.Item> items) {
+        Map<String, ProductPackage> existing = findAllGlobally(items.stream().map(PackageMoveBatchRequest.Item::trackingId).toList());
+
+        List<BatchItemResult> results = new ArrayList<>();
+        List<String> details = new ArrayList<>();
+        List<PackageQueueEvent> events = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (PackageMoveBatchRequest.Item item : items) {
+            String trackingId = item.trackingId();
+            if (!seen.add(trackingId)) {
+                results.add(BatchItemResult.error(trackingId, "Tracking ID repetido no lote."));
+                continue;
+            }
+
+            ProductPackage pkg = existing.get(trackingId);
+            if (pkg == null || pkg.getDeletedAt() != null) {
+                results.add(BatchItemResult.error(trackingId, "Pacote não encontrado na fila."));
+                continue;
+            }
+
+            String oldRua = pkg.getRua();
+            if (oldRua.equals(item.rua())) {
+                results.add(BatchItemResult.ok(trackingId, "Sem alteração."));
+                continue;
+            }
+
+            // Entidade gerenciada: o UPDATE sai no flush junto com os demais
+            pkg.setRua(item.rua());
+            details.add(String.format("Pacote %s movido da rua %s para %s", trackingId, oldRua, item.rua()));
+            events.add(PackageQueueEvent.of(PackageQueueEvent.Type.MOVED, pkg, oldRua));
+            results.add(BatchItemResult.ok(trackingId, "Movimentação registrada."));
+        }
+
+        auditService.logActions("MOVIMENTACAO", details);
+        events.forEach(eventPublisher::publishEvent);
+
+        return results;
+    }
+
+    // Busca global (ativos e deletados) de todos os IDs em uma única consulta
+    private Map<String, ProductPackage> findAllGlobally(Collection<String> trackingIds) {
+        Set<String> distinct = new HashSet<>(trackingIds);
+        if (distinct.isEmpty()) return Map.of();
+
+        Map<String, ProductPackage> byTrackingId = new HashMap<>();
+        for (ProductPackage pkg : packageRepository.findAllByTrackingIdGlobally(distinct)) {
+            byTrackingId.put(pkg.getTrackingId(), pkg);
+        }
+        return byTrackingId;
+    }
+
+    private static String resolveProfileCode(PackageEntryRequest request) {
+        if ("SAL".equals(request.buffer())) return "N/A";
+        if (request.profile() == null) {
+            throw new IllegalArgumentException("Perfil é obrigatório para buffers RTS e EHA.");
+        }
+        return request.profile();
+    }
+
+    private static int profileValueOf(String profileCode) {
+        return switch (profileCode) {
+            case "P" -> 250;
+            case "M" -> 80;
+            case "G" -> 10;
+            default -> 0;
+        };
     }
 
     // Método necessário para a compatibilidade com o Frontend antigo
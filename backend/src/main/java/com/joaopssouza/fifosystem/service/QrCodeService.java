@@ -2,52 +2,72 @@ package com.joaopssouza.fifosystem.service;
 
 import com.joaopssouza.fifosystem.domain.entity.ProductPackage;
 import com.joaopssouza.fifosystem.domain.repository.PackageRepository;
+import com.joaopssouza.fifosystem.dto.LabelConfirmResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class QrCodeService {
 
+    // Pacotes PENDENTE (etiqueta impressa, ainda fora da fila); IDs já existentes são ignorados
+    private static final String INSERT_PENDING = """
+            INSERT INTO packages (tracking_id, buffer, rua, profile_type, profile_value, entry_timestamp, created_at, updated_at)
+            SELECT t.tracking_id, 'PENDENTE', 'INDEFINIDA', 'N/A', 0, NULL, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+            FROM unnest(?::text[]) AS t(tracking_id)
+            ON CONFLICT (tracking_id) DO NOTHING
+            """;
+
     private final PackageRepository packageRepository;
+    private final TrackingIdAllocator trackingIdAllocator;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${qrcode.confirm.chunk-size:1000}")
+    private int confirmChunkSize;
 
+    // Faixa contígua do alocador + uma única checagem de colisão por faixa
+    // (IDs digitados manualmente podem já ocupar números acima da marca d'água)
     public List<String> generateData(int quantity) {
-        List<String> nextIds = new ArrayList<>();
-        int currentNumber = 1;
+        List<String> nextIds = new ArrayList<>(quantity);
 
         while (nextIds.size() < quantity) {
-            // Formata CG000001
-            String nextIDStr = String.format("CG%06d", currentNumber);
+            int missing = quantity - nextIds.size();
+            long start = trackingIdAllocator.allocate(missing);
+
+            List<String> candidates = new ArrayList<>(missing);
+            for (long n = start; n < start + missing; n++) {
+                candidates.add(TrackingIdAllocator.format(n));
+            }
 
-            // Verifica se existe (incluindo deletados)
-            if (!packageRepository.existsByTrackingIdGlobally(nextIDStr)) {
-                nextIds.add(nextIDStr);
+            Set<String> existing = new HashSet<>(packageRepository.findExistingTrackingIdsGlobally(candidates));
+            for (String candidate : candidates) {
+                if (!existing.contains(candidate)) nextIds.add(candidate);
             }
-            currentNumber++;
-            
-            // Safety break (opcional, para evitar loop infinito em banco cheio)
-            if (currentNumber > 1000000) break;
         }
         return nextIds;
     }
 
+    // INSERT multi-linha via unnest(text[]) em blocos: um round trip por bloco, sem montar
+    // entidades nem contexto de persistência e com memória limitada ao bloco
     @Transactional
-    public void confirmData(List<String> trackingIds) {
-        List<ProductPackage> newPackages = trackingIds.stream()
-                .map(id -> ProductPackage.builder()
-                        .trackingId(id)
-                        .buffer("PENDENTE")
-                        .rua("INDEFINIDA")
-                        .profileType("N/A")
-                        .profileValue(0)
-                        .build())
-                .toList();
-
-        packageRepository.saveAll(newPackages);
+    public LabelConfirmResult confirmData(List<String> trackingIds) {
+        int inserted = 0;
+
+        for (int from = 0; from < trackingIds.size(); from += confirmChunkSize) {
+            List<String> chunk = trackingIds.subList(from, Math.min(from + confirmChunkSize, trackingIds.size()));
+            inserted += jdbcTemplate.update(INSERT_PENDING, ps ->
+                    ps.setArray(1, ps.getConnection().createArrayOf("text", chunk.toArray())));
+        }
+
+        return new LabelConfirmResult(trackingIds.size(), inserted, trackingIds.size() - inserted);
     }
 
     public String findData(String trackingId) {
@@ -0,0 +1,154 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.joaopssouza.fifosystem.domain.repository.PackageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.Ordered;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agregados da fila mantidos em memória (contagem, soma de valores e soma dos
+ * timestamps de entrada por buffer). Atualizado incrementalmente pelos
+ * PackageQueueEvent e reconstruído do banco na subida da aplicação e a cada mudança
+ * feita por outra instância (RemoteQueueChangeEvent, ver QueueSync), permitindo
+ * que /api/dashboard/stats responda em O(1) sem consultar o banco.
+ */
+@Service
+@RequiredArgsConstructor
+public class QueueStatsEngine implements SmartInitializingSingleton {
+
+    private static final String PENDENTE = "PENDENTE";
+
+    private final PackageRepository packageRepository;
+
+    // Acesso sempre sob o lock do próprio engine (operações O(1))
+    private final Map<String, BufferStats> buffers = new HashMap<>();
+
+    // Antes de o servidor web aceitar requisições: nenhum evento da fila pode chegar ainda
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    // Consulta e troca sob o mesmo lock do apply: um evento que chega durante a consulta
+    // espera e é somado por cima, em vez de ser apagado pela troca
+    public synchronized void rebuild() {
+        List<Object[]> rows = packageRepository.aggregateActiveByBuffer(PENDENTE);
+
+        buffers.clear();
+        for (Object[] row : rows) {
+            BufferStats stats = new BufferStats();
+            stats.count = ((Number) row[1]).longValue();
+            stats.valueSum = ((Number) row[2]).longValue();
+            stats.timedCount = ((Number) row[3]).longValue();
+            stats.entryEpochSum = ((Number) row[4]).longValue();
+            buffers.put((String) row[0], stats);
+        }
+    }
+
+    // Outra instância alterou a fila: o evento não diz o quê, então relê os agregados do banco.
+    // Um commit local cujo evento chega logo depois da consulta é somado duas vezes; a próxima
+    // reconstrução corrige
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onRemoteQueueChange(RemoteQueueChangeEvent event) {
+        rebuild();
+    }
+
+    // Ordem máxima: os agregados já estão atualizados quando o broadcast do WebSocket roda
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueEvent(PackageQueueEvent event) {
+        switch (event.type()) {
+            case ENTERED -> onEntry(event.buffer(), event.profileValue(), event.entryTimestamp());
+            case EXITED -> onExit(event.buffer(), event.profileValue(), event.entryTimestamp());
+            case MOVED -> { } // Mudança de rua não altera os agregados por buffer
+        }
+    }
+
+    public void onEntry(String buffer, Integer profileValue, LocalDateTime entryTimestamp) {
+        apply(buffer, profileValue, entryTimestamp, 1);
+    }
+
+    public void onExit(String buffer, Integer profileValue, LocalDateTime entryTimestamp) {
+        apply(buffer, profileValue, entryTimestamp, -1);
+    }
+
+    // Mesmo formato de resposta do cálculo antigo (que varria a fila inteira)
+    public Map<String, Object> snapshot() {
+        return snapshot(toEpochSecond(LocalDateTime.now()));
+    }
+
+    // Tempos médios calculados no instante informado (epoch em segundos): com o mesmo
+    // instante e a mesma versão da fila a resposta é idêntica (base do ETag do /stats)
+    public synchronized Map<String, Object> snapshot(long nowEpoch) {
+        long backlogCount = 0;
+        long backlogValue = 0;
+
+        Map<String, Long> counts = new HashMap<>(Map.of("RTS", 0L, "EHA", 0L, "SAL", 0L));
+        Map<String, Long> values = new HashMap<>(Map.of("RTS", 0L, "EHA", 0L, "SAL", 0L));
+        Map<String, Double> avgTimes = new HashMap<>(Map.of("RTS", 0.0, "EHA", 0.0));
+
+        for (Map.Entry<String, BufferStats> entry : buffers.entrySet()) {
+            String buf = entry.getKey();
+            BufferStats stats = entry.getValue();
+
+            if (counts.containsKey(buf)) {
+                counts.put(buf, stats.count);
+                values.put(buf, stats.valueSum);
+            }
+
+            // Backlog Geral (Exclui SAL)
+            if (!"SAL".equals(buf)) {
+                backlogCount += stats.count;
+                backlogValue += stats.valueSum;
+
+                // Soma das idades = n * agora - soma das entradas
+                if (avgTimes.containsKey(buf) && stats.count > 0) {
+                    long totalSeconds = stats.timedCount * nowEpoch - stats.entryEpochSum;
+                    avgTimes.put(buf, Math.max(0.0, (double) totalSeconds / stats.count));
+                }
+            }
+        }
+
+        return Map.of(
+            "backlogCount", backlogCount,
+            "backlogValue", backlogValue,
+            "counts", counts,
+            "values", values,
+            "avgTimes", avgTimes
+        );
+    }
+
+    private synchronized void apply(String buffer, Integer profileValue, LocalDateTime entryTimestamp, int sign) {
+        if (buffer == null || PENDENTE.equals(buffer)) return;
+
+        BufferStats stats = buffers.computeIfAbsent(buffer, b -> new BufferStats());
+        stats.count += sign;
+        stats.valueSum += (long) sign * (profileValue != null ? profileValue : 0);
+        if (entryTimestamp != null) {
+            stats.timedCount += sign;
+            stats.entryEpochSum += sign * toEpochSecond(entryTimestamp);
+        }
+    }
+
+    private static long toEpochSecond(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static class BufferStats {
+        long count;
+        long valueSum;
+        long timedCount;
+        long entryEpochSum;
+    }
+}
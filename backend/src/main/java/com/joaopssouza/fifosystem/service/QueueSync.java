@@ -0,0 +1,110 @@
+package com.joaopssouza.fifosystem.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Invalidação entre instâncias do estado da fila mantido em memória (QueueVersion,
+ * FifoQueueIndex, QueueStatsEngine), que as mutações locais só atualizam por PackageQueueEvent.
+ *
+ * - cada instância tem uma linha em queue_versions (V14) e só escreve nela: depois do commit,
+ *   as mutações de um intervalo (queue.sync.interval-ms) viram um único incremento, fora das
+ *   transações de packages (nenhum lock disputado com os scanners);
+ * - no mesmo intervalo a instância lê as linhas das outras; se alguma mudou, publica um
+ *   RemoteQueueChangeEvent.
+ *
+ * Uma mudança remota aparece em até ~2 intervalos. Alterações feitas fora da aplicação
+ * (SQL manual) não passam por aqui. queue.sync.enabled=false desliga (instância única).
+ */
+@Slf4j
+@Component
+public class QueueSync {
+
+    private static final String PUBLISH = """
+            INSERT INTO queue_versions (instance, version, updated_at) VALUES (?, 1, now())
+            ON CONFLICT (instance) DO UPDATE
+               SET version = queue_versions.version + 1, updated_at = now()
+            """;
+    private static final String READ_OTHERS = "SELECT instance, version FROM queue_versions WHERE instance <> ?";
+    // Linhas de instâncias que não mudam a fila há um dia (ex.: subidas anteriores)
+    private static final String PURGE =
+            "DELETE FROM queue_versions WHERE updated_at < now() - interval '1 day' AND instance <> ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+
+    private final String instance = UUID.randomUUID().toString();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    // Versões das outras instâncias na última leitura (só a thread do agendador acessa)
+    private Map<String, Long> seen = Map.of();
+
+    public QueueSync(JdbcTemplate jdbcTemplate,
+                     ApplicationEventPublisher eventPublisher,
+                     @Value("${queue.sync.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueEvent(PackageQueueEvent event) {
+        pending.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${queue.sync.interval-ms:1000}")
+    public void sync() {
+        if (!enabled) return;
+        try {
+            publishLocalChanges();
+            detectRemoteChanges();
+        } catch (DataAccessException e) {
+            log.warn("Falha ao sincronizar a versão da fila entre instâncias: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${queue.sync.cleanup-interval-ms:3600000}")
+    public void purgeStale() {
+        if (!enabled) return;
+        int removed = jdbcTemplate.update(PURGE, instance);
+        if (removed > 0) log.debug("{} versões de instâncias inativas removidas", removed);
+    }
+
+    private void publishLocalChanges() {
+        if (!pending.getAndSet(false)) return;
+        try {
+            jdbcTemplate.update(PUBLISH, instance);
+        } catch (DataAccessException e) {
+            pending.set(true); // Tenta de novo no próximo intervalo
+            throw e;
+        }
+    }
+
+    private void detectRemoteChanges() {
+        Map<String, Long> current = new HashMap<>();
+        jdbcTemplate.query(READ_OTHERS, (rs, rowNum) -> Map.entry(rs.getString("instance"), rs.getLong("version")),
+                        instance)
+                .forEach(row -> current.put(row.getKey(), row.getValue()));
+
+        boolean changed = !current.equals(seen);
+        seen = current;
+        if (changed) {
+            log.debug("Fila alterada por outra instância; invalidando o estado em memória");
+            eventPublisher.publishEvent(new RemoteQueueChangeEvent());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.joaopssouza.fifosystem.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versão global da fila: incrementada a cada PackageQueueEvent (após o commit), depois
+ * que o QueueStatsEngine e o FifoQueueIndex já aplicaram a mudança, e a cada
+ * RemoteQueueChangeEvent (mudança feita por outra instância, ver QueueSync). Base dos ETags
+ * de GET /api/packages e /api/dashboard/stats: com a mesma versão a resposta é a mesma,
+ * então um If-None-Match igual vira 304 sem consultar o banco nem serializar nada.
+ *
+ * Quem monta a resposta lê a versão ANTES dos dados: no pior caso o corpo é mais novo
+ * que o ETag (o cliente só baixa de novo), nunca o contrário.
+ */
+@Component
+public class QueueVersion {
+
+    // Muda a cada subida: ETags de antes de um restart (ou de outra instância) não batem
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueEvent(PackageQueueEvent event) {
+        version.incrementAndGet();
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @EventListener
+    public void onRemoteQueueChange(RemoteQueueChangeEvent event) {
+        version.incrementAndGet();
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    // ETag forte (entre aspas) para o recurso; "parts" distingue variações do mesmo recurso
+    public String etag(String resource, Object... parts) {
+        StringBuilder tag = new StringBuilder("\"").append(resource).append('-')
+                .append(instance).append('-').append(version.get());
+        for (Object part : parts) tag.append('-').append(part);
+        return tag.append('"').toString();
+    }
+}
@@ -0,0 +1,8 @@
+package com.joaopssouza.fifosystem.service;
+
+/**
+ * Publicado pelo QueueSync quando outra instância alterou a fila. Não diz o que mudou:
+ * quem mantém estado derivado da fila em memória deve se reconstruir a partir do banco.
+ */
+public record RemoteQueueChangeEvent() {
+}
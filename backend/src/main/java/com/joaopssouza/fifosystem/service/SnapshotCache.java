@@ -0,0 +1,122 @@
+package com.joaopssouza.fifosystem.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Respostas prontas (JSON já serializado e já comprimido em gzip) dos GETs públicos
+ * (/api/packages e /api/dashboard/stats, abertos para TVs e convidados).
+ *
+ * - single-flight: N requisições simultâneas pelo mesmo recurso e ETag disparam um único
+ *   cálculo (consulta + serialização + gzip); as demais esperam e reutilizam o resultado;
+ * - o snapshot vale enquanto o ETag (versão da fila) não muda e por no máximo
+ *   snapshot.ttl-ms; a próxima mutação da fila muda o ETag e invalida na hora.
+ *
+ * snapshot.ttl-ms=0 desativa o cache (cada requisição calcula a sua resposta).
+ */
+@Service
+public class SnapshotCache {
+
+    public record Snapshot(String etag, byte[] json, byte[] gzip, long builtAtNanos) {}
+
+    private record Entry(String etag, CompletableFuture<Snapshot> future) {}
+
+    private final JsonMapper jsonMapper;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+
+    public SnapshotCache(JsonMapper jsonMapper, @Value("${snapshot.ttl-ms:1000}") long ttlMs) {
+        this.jsonMapper = jsonMapper;
+        this.ttlNanos = Math.max(0, ttlMs) * 1_000_000L;
+    }
+
+    // Snapshot do recurso para o ETag informado (lido ANTES de calcular o corpo)
+    public Snapshot get(String resource, String etag, Supplier<?> body) {
+        if (ttlNanos == 0) {
+            builds.incrementAndGet();
+            return build(etag, body.get());
+        }
+
+        while (true) {
+            Entry current = entries.get(resource);
+            if (current != null && current.etag().equals(etag)) {
+                CompletableFuture<Snapshot> future = current.future();
+                if (!future.isDone()) {
+                    coalesced.incrementAndGet();
+                    return await(future);
+                }
+                if (!future.isCompletedExceptionally() && System.nanoTime() - future.join().builtAtNanos() < ttlNanos) {
+                    hits.incrementAndGet();
+                    return future.join();
+                }
+            }
+
+            // Ninguém calculando este ETag (ou snapshot vencido): esta requisição calcula
+            Entry mine = new Entry(etag, new CompletableFuture<>());
+            boolean claimed = current == null
+                    ? entries.putIfAbsent(resource, mine) == null
+                    : entries.replace(resource, current, mine);
+            if (!claimed) continue; // Outra requisição chegou antes: reavalia
+
+            try {
+                builds.incrementAndGet();
+                Snapshot snapshot = build(etag, body.get());
+                mine.future().complete(snapshot);
+                return snapshot;
+            } catch (RuntimeException e) {
+                entries.remove(resource, mine);
+                mine.future().completeExceptionally(e); // Quem esperava recebe o mesmo erro
+                throw e;
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+            "ttlMs", ttlNanos / 1_000_000L,
+            "hits", hits.get(),
+            "coalesced", coalesced.get(),
+            "builds", builds.get()
+        );
+    }
+
+    private Snapshot build(String etag, Object body) {
+        byte[] json = jsonMapper.writeValueAsBytes(body);
+        return new Snapshot(etag, json, gzip(json), System.nanoTime());
+    }
+
+    private static Snapshot await(CompletableFuture<Snapshot> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Só memória: não acontece na prática
+        }
+        return out.toByteArray();
+    }
+}
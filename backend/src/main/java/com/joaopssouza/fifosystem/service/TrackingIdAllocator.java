@@ -0,0 +1,87 @@
+package com.joaopssouza.fifosystem.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Alocador hi/lo de números para tracking IDs. A marca d'água fica em
+ * tracking_id_allocator; cada instância reserva blocos com um único
+ * UPDATE ... RETURNING (lock de linha = seguro entre impressoras e instâncias)
+ * e entrega faixas contíguas do bloco em memória.
+ * Números de um bloco não usado são descartados (lacunas são aceitáveis).
+ */
+@Component
+public class TrackingIdAllocator {
+
+    public static final String PREFIX = "CG";
+
+    // Reserva [next_value, next_value + n) e devolve o início da faixa
+    private static final String RESERVE = """
+            UPDATE tracking_id_allocator
+            SET next_value = next_value + ?
+            WHERE prefix = ?
+            RETURNING next_value - ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final int blockSize;
+
+    // ReentrantLock em vez de synchronized: a reserva faz JDBC e, no Java 21, bloquear
+    // dentro de synchronized prende a thread virtual à thread de plataforma (pinning)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Bloco em memória: [next, end), protegido pelo lock
+    private long next;
+    private long end;
+
+    public TrackingIdAllocator(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${qrcode.allocator.block-size:100}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    // Devolve o primeiro número de uma faixa contígua de "quantity" números
+    public long allocate(int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantidade inválida.");
+
+        lock.lock();
+        try {
+            if (end - next < quantity) {
+                // Bloco atual não comporta a faixa inteira: reserva um novo (no mínimo "quantity")
+                int size = Math.max(quantity, blockSize);
+                next = reserve(size);
+                end = next + size;
+            }
+
+            long start = next;
+            next += quantity;
+            return start;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static String format(long number) {
+        return String.format(PREFIX + "%06d", number);
+    }
+
+    // Transação própria: a reserva é confirmada mesmo se a operação chamadora falhar
+    private long reserve(int size) {
+        Long start = requiresNew.execute(status ->
+                jdbcTemplate.queryForObject(RESERVE, Long.class, size, PREFIX, size));
+        if (start == null) {
+            throw new IllegalStateException("Alocador de tracking IDs não inicializado (prefixo " + PREFIX + ").");
+        }
+        return start;
+    }
+}
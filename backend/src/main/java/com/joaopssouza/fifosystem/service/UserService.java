@@ -20,6 +20,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final EntityCacheService entityCacheService; // Cache de segundo nível + principal, invalidados a cada alteração
 
     public List<UserDTO> findAll() {
         return userRepository.findAll().stream()
@@ -52,6 +53,8 @@ public class UserService {
                 .build();
 
         userRepository.save(user);
+        // A consulta por username acima pode ter ficado no cache como "não encontrado"
+        entityCacheService.evictUser(null, user.getUsername());
     }
 
    @Transactional
@@ -70,6 +73,7 @@ public class UserService {
         
         // O save não é estritamente necessário devido ao @Transactional, mas é boa prática explícita
         userRepository.save(user);
+        entityCacheService.evictUser(user.getId(), user.getUsername());
     }
 
     @Transactional
@@ -79,5 +83,6 @@ public class UserService {
         
         user.setPasswordHash(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        entityCacheService.evictUser(user.getId(), user.getUsername());
     }
 }
\ No newline at end of file
@@ -2,74 +2,218 @@ package com.joaopssouza.fifosystem.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.joaopssouza.fifosystem.domain.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
+/**
+ * Sessões do /api/ws e envio das mensagens. Cada mensagem é serializada uma única
+ * vez e enfileirada na fila de saída de cada sessão; o envio roda no executor de
+ * tarefas da aplicação (uma tarefa por sessão por vez, preservando a ordem). Quem
+ * publica nunca espera o cliente, e um cliente lento só atrasa a si mesmo.
+ *
+ * Clientes que ficam para trás (fila acima de websocket.send.buffer-size-limit bytes
+ * ou mensagem esperando mais que websocket.send.time-limit-ms) são desconectados.
+ *
+ * Presença (admins e líderes): lista completa (online_users) só ao conectar; depois,
+ * deltas user_online / user_offline agrupados a cada websocket.presence.flush-ms.
+ */
+@Slf4j
 @Component
 public class DashboardWebSocketHandler extends TextWebSocketHandler {
 
-    private final List<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+    // Timeout do envio bloqueante no Tomcat (propriedade da sessão JSR-356)
+    private static final String TOMCAT_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper;
+    private final PresenceRegistry presenceRegistry;
+    private final long sendTimeLimitMs;
+    private final long bufferSizeLimit;
+    // Executor de tarefas do Spring Boot: threads virtuais com spring.threads.virtual.enabled=true,
+    // senão o pool spring.task.execution.pool.* (um cliente travado ocupa uma thread até o timeout)
+    private final AsyncTaskExecutor sendExecutor;
+
+    private final AtomicLong evicted = new AtomicLong();
+    // Lista completa e deltas de presença entram nas filas das sessões na mesma ordem em que
+    // foram lidos do registro: um delta nunca chega antes da lista que ele pressupõe
+    private final Object presenceLock = new Object();
 
-    // Injetamos apenas o ObjectMapper (padrão do Spring)
-    public DashboardWebSocketHandler(ObjectMapper objectMapper) {
+    // Injetamos o ObjectMapper (padrão do Spring), o registro de presença, o executor e os limites de envio
+    public DashboardWebSocketHandler(ObjectMapper objectMapper,
+                                     PresenceRegistry presenceRegistry,
+                                     @Qualifier("applicationTaskExecutor") AsyncTaskExecutor sendExecutor,
+                                     @Value("${websocket.send.time-limit-ms:10000}") long sendTimeLimitMs,
+                                     @Value("${websocket.send.buffer-size-limit:524288}") long bufferSizeLimit) {
         this.objectMapper = objectMapper;
+        this.presenceRegistry = presenceRegistry;
+        this.sendExecutor = sendExecutor;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        sessions.add(session);
-        // Apenas avisa quem está online ao conectar
-        broadcastOnlineUsers();
+        if (session instanceof NativeWebSocketSession nativeSession
+                && nativeSession.getNativeSession(jakarta.websocket.Session.class) instanceof jakarta.websocket.Session jsr356) {
+            jsr356.getUserProperties().put(TOMCAT_SEND_TIMEOUT, sendTimeLimitMs);
+        }
+
+        Client client = new Client(session);
+        clients.put(session.getId(), client);
+
+        User user = client.user();
+        if (user == null) return;
+        presenceRegistry.connected(user); // Os demais recebem o delta na próxima janela
+
+        // Primeira inscrição: lista completa apenas para esta sessão
+        if (seesPresence(client)) {
+            synchronized (presenceLock) {
+                publish(Map.of("type", "online_users", "data", presenceRegistry.snapshot()), c -> c == client);
+            }
+        }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        sessions.remove(session);
-        // Atualiza a lista ao desconectar
-        broadcastOnlineUsers();
+        Client client = clients.remove(session.getId());
+        if (client != null) client.queue.clear();
+
+        User user = (User) session.getAttributes().get("user");
+        if (user != null) presenceRegistry.disconnected(user);
+    }
+
+    // Envia a mensagem para todas as sessões autenticadas (ex: deltas da fila)
+    public void broadcast(Map<String, Object> message) {
+        publish(message, client -> client.user() != null);
     }
 
-    private void broadcastOnlineUsers() {
-        Map<Long, Map<String, Object>> uniqueUsers = new HashMap<>();
-        
-        for (WebSocketSession session : sessions) {
-            User user = (User) session.getAttributes().get("user");
-            if (user != null) {
-                uniqueUsers.put(user.getId(), Map.of(
-                    "id", user.getId(),
-                    "username", user.getUsername(),
-                    "fullName", user.getFullName(),
-                    "role", user.getRole().getName(),
-                    "sector", user.getSector()
-                ));
+    public Map<String, Object> stats() {
+        long queued = 0;
+        for (Client client : clients.values()) queued += client.bufferedBytes.get();
+        return Map.of(
+            "sessions", clients.size(),
+            "onlineUsers", presenceRegistry.onlineCount(),
+            "queuedBytes", queued,
+            "evicted", evicted.get()
+        );
+    }
+
+    // Uma mensagem por tipo de mudança por janela, em vez da lista inteira a cada conexão
+    @Scheduled(fixedDelayString = "${websocket.presence.flush-ms:1000}")
+    public void flushPresence() {
+        synchronized (presenceLock) {
+            PresenceRegistry.Delta delta = presenceRegistry.drain();
+            if (delta.isEmpty()) return;
+
+            if (!delta.online().isEmpty()) {
+                publish(Map.of("type", "user_online", "data", delta.online()), this::seesPresence);
+            }
+            if (!delta.offline().isEmpty()) {
+                publish(Map.of("type", "user_offline", "data", delta.offline()), this::seesPresence);
             }
         }
+    }
 
-        Map<String, Object> message = Map.of(
-            "type", "online_users",
-            "data", new ArrayList<>(uniqueUsers.values())
-        );
+    // Apenas Admins e Líderes recebem a presença
+    private boolean seesPresence(Client client) {
+        User user = client.user();
+        return user != null && (user.getRole().getName().equals("admin") || user.getRole().getName().equals("leader"));
+    }
 
+    // Serializa uma vez e enfileira para cada destinatário (não bloqueia quem chamou)
+    private void publish(Map<String, Object> message, Predicate<Client> recipients) {
+        TextMessage textMessage;
         try {
-            String json = objectMapper.writeValueAsString(message);
-            TextMessage textMessage = new TextMessage(json);
-            for (WebSocketSession session : sessions) {
-                User user = (User) session.getAttributes().get("user");
-                // Apenas Admins e Líderes recebem esta lista
-                if (user != null && (user.getRole().getName().equals("admin") || user.getRole().getName().equals("leader"))) {
-                     if (session.isOpen()) session.sendMessage(textMessage);
-                }
-            }
+            textMessage = new TextMessage(objectMapper.writeValueAsBytes(message));
         } catch (IOException e) {
-            e.printStackTrace();
+            log.error("Falha ao serializar mensagem do WebSocket", e);
+            return;
+        }
+        for (Client client : clients.values()) {
+            if (recipients.test(client)) client.enqueue(textMessage);
         }
     }
-}
\ No newline at end of file
+
+    private void evict(Client client, String reason) {
+        if (!clients.remove(client.session.getId(), client)) return;
+        evicted.incrementAndGet();
+        client.queue.clear();
+        log.warn("Sessão WebSocket {} desconectada: {}", client.session.getId(), reason);
+        // Fecha fora da thread de quem publicou (o close pode esperar o envio em andamento)
+        sendExecutor.execute(() -> {
+            try {
+                client.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Falha ao fechar sessão WebSocket {}", client.session.getId(), e);
+            }
+        });
+    }
+
+    // Fila de saída de uma sessão; no máximo uma tarefa de envio ativa por vez
+    private final class Client {
+        final WebSocketSession session;
+        final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+        final AtomicLong bufferedBytes = new AtomicLong();
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Client(WebSocketSession session) {
+            this.session = session;
+        }
+
+        User user() {
+            return (User) session.getAttributes().get("user");
+        }
+
+        void enqueue(TextMessage message) {
+            Pending oldest = queue.peek();
+            if (oldest != null && System.currentTimeMillis() - oldest.enqueuedAt > sendTimeLimitMs) {
+                evict(this, "mensagem aguardando há mais de " + sendTimeLimitMs + " ms");
+                return;
+            }
+            if (bufferedBytes.addAndGet(message.getPayloadLength()) > bufferSizeLimit) {
+                evict(this, "fila de saída acima de " + bufferSizeLimit + " bytes");
+                return;
+            }
+            queue.add(new Pending(message, System.currentTimeMillis()));
+            if (draining.compareAndSet(false, true)) sendExecutor.execute(this::drain);
+        }
+
+        private void drain() {
+            do {
+                Pending next;
+                while ((next = queue.poll()) != null) {
+                    bufferedBytes.addAndGet(-next.message.getPayloadLength());
+                    if (!session.isOpen()) continue;
+                    try {
+                        session.sendMessage(next.message);
+                    } catch (IOException | IllegalStateException e) {
+                        // Inclui o timeout de envio do Tomcat: cliente parado
+                        evict(this, "falha no envio (" + e.getMessage() + ")");
+                        return;
+                    }
+                }
+                draining.set(false);
+                // Algo pode ter chegado entre o último poll e o set(false)
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+
+    private record Pending(TextMessage message, long enqueuedAt) {}
+}
@@ -0,0 +1,87 @@
+package com.joaopssouza.fifosystem.websocket;
+
+import com.joaopssouza.fifosystem.domain.entity.User;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quem está online: userId -> número de sessões abertas. Conectar/desconectar é O(1)
+ * e só marca o usuário como alterado; o DashboardWebSocketHandler drena as mudanças
+ * em janelas de tempo e envia apenas os deltas (user_online / user_offline).
+ * Entrar e sair dentro da mesma janela (reconexão) não gera mensagem nenhuma.
+ *
+ * A lista completa de quem acabou de se inscrever sai do conjunto já anunciado (o mesmo
+ * estado que os deltas seguintes pressupõem), não de quem está online agora: um usuário
+ * ainda não anunciado chega a ele como user_online na próxima drenagem, como para os demais.
+ */
+@Component
+public class PresenceRegistry {
+
+    private record Presence(Map<String, Object> info, int sessions) {}
+
+    // Mudanças desde a última drenagem, já comparadas com o que os clientes conhecem
+    public record Delta(List<Map<String, Object>> online, List<Long> offline) {
+        public boolean isEmpty() {
+            return online.isEmpty() && offline.isEmpty();
+        }
+    }
+
+    private final Map<Long, Presence> online = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    // Usuários já anunciados como online aos clientes (acesso só sob o lock do registro)
+    private final Map<Long, Map<String, Object>> announced = new LinkedHashMap<>();
+
+    public void connected(User user) {
+        Map<String, Object> info = info(user);
+        online.compute(user.getId(), (id, p) -> new Presence(info, p == null ? 1 : p.sessions() + 1));
+        dirty.add(user.getId());
+    }
+
+    public void disconnected(User user) {
+        online.computeIfPresent(user.getId(), (id, p) -> p.sessions() <= 1 ? null : new Presence(p.info(), p.sessions() - 1));
+        dirty.add(user.getId());
+    }
+
+    // Lista completa: enviada só para quem acabou de se inscrever
+    public synchronized List<Map<String, Object>> snapshot() {
+        return List.copyOf(announced.values());
+    }
+
+    public synchronized Delta drain() {
+        List<Map<String, Object>> cameOnline = new ArrayList<>();
+        List<Long> wentOffline = new ArrayList<>();
+
+        for (Iterator<Long> it = dirty.iterator(); it.hasNext(); ) {
+            Long id = it.next();
+            it.remove(); // Mudança posterior a esta leitura marca o usuário de novo
+            Presence presence = online.get(id);
+            if (presence != null && announced.putIfAbsent(id, presence.info()) == null) {
+                cameOnline.add(presence.info());
+            } else if (presence == null && announced.remove(id) != null) {
+                wentOffline.add(id);
+            }
+        }
+        return new Delta(cameOnline, wentOffline);
+    }
+
+    public int onlineCount() {
+        return online.size();
+    }
+
+    private static Map<String, Object> info(User user) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("id", user.getId());
+        info.put("username", user.getUsername());
+        info.put("fullName", user.getFullName());
+        info.put("role", user.getRole().getName());
+        info.put("sector", user.getSector());
+        return info;
+    }
+}
@@ -0,0 +1,73 @@
+package com.joaopssouza.fifosystem.websocket;
+
+import com.joaopssouza.fifosystem.service.PackageQueueEvent;
+import com.joaopssouza.fifosystem.service.QueueStatsEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Converte os PackageQueueEvent em mensagens delta no WebSocket (/api/ws).
+ * Cada mensagem carrega um "seq" crescente: o cliente aplica o patch e, se
+ * detectar um buraco na sequência, recarrega a fila pela API REST.
+ *
+ * Os listeners pós-commit rodam nas threads das requisições: numerar e enfileirar
+ * acontecem sob o mesmo lock, senão o seq 6 poderia chegar antes do 5. O broadcast só
+ * enfileira por sessão (não bloqueia), então o lock é curto.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueueEventBroadcaster {
+
+    private final DashboardWebSocketHandler dashboardWebSocketHandler;
+    private final QueueStatsEngine queueStatsEngine;
+
+    private final Object publishLock = new Object();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Roda depois do QueueStatsEngine, então o stats_changed já reflete a mudança
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueEvent(PackageQueueEvent event) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", event.id());
+        data.put("trackingId", event.trackingId());
+        data.put("buffer", event.buffer());
+        data.put("rua", event.rua());
+        data.put("profileType", event.profileType());
+        data.put("profileValue", event.profileValue());
+        // ISO 8601, mesmo formato da API REST
+        data.put("entryTimestamp", event.entryTimestamp() != null ? event.entryTimestamp().toString() : null);
+        if (event.previousRua() != null) data.put("previousRua", event.previousRua());
+
+        synchronized (publishLock) {
+            dashboardWebSocketHandler.broadcast(message(event.type().wireName(), data));
+
+            if (event.type() != PackageQueueEvent.Type.MOVED) {
+                dashboardWebSocketHandler.broadcast(message("stats_changed", queueStatsEngine.snapshot()));
+            }
+        }
+    }
+
+    /**
+     * Último seq já enfileirado. Lido ANTES de montar um snapshot REST: todo delta com
+     * seq menor ou igual já está nos dados, e o cliente pode descartá-lo (X-Queue-Seq).
+     */
+    public long currentSeq() {
+        return sequence.get();
+    }
+
+    private Map<String, Object> message(String type, Object data) {
+        return Map.of(
+            "type", type,
+            "seq", sequence.incrementAndGet(),
+            "data", data
+        );
+    }
+}
@@ -0,0 +1,14 @@
+-- V10__Packages_Queue_Head_Indexes.sql
+
+-- Cabeça da fila (itens mais antigos) por buffer e por buffer + rua.
+-- Parciais em deleted_at IS NULL (mesma condição do @SQLRestriction) e com INCLUDE das
+-- colunas do PackageSummaryDTO: cada consulta vira um único Index Only Scan.
+CREATE INDEX IF NOT EXISTS idx_packages_head_buffer
+    ON packages (buffer, entry_timestamp, id)
+    INCLUDE (tracking_id, rua, profile_type, profile_value)
+    WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_packages_head_buffer_rua
+    ON packages (buffer, rua, entry_timestamp, id)
+    INCLUDE (tracking_id, profile_type, profile_value)
+    WHERE deleted_at IS NULL;
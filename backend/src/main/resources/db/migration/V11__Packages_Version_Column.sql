@@ -0,0 +1,5 @@
+-- V11__Packages_Version_Column.sql
+-- Controle de concorrência otimista (@Version em ProductPackage): duas operações
+-- sobre o mesmo pacote (ex.: dois scanners) não podem mais sobrescrever uma à outra.
+
+ALTER TABLE packages ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+-- V12__Create_Idempotency_Keys.sql
+-- Respostas gravadas por Idempotency-Key (idempotency.store=jdbc, várias instâncias).
+-- status NULL = requisição ainda em processamento na instância que reservou a chave.
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    key_hash VARCHAR(64) PRIMARY KEY, -- SHA-256 de usuário + operação + chave
+    fingerprint VARCHAR(64) NOT NULL, -- SHA-256 do corpo da requisição
+    status INTEGER,
+    json BOOLEAN,
+    body TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,11 @@
+-- V13__Pooled_Id_Sequences.sql
+-- packages e audit_logs passam de IDENTITY para SEQUENCE com otimizador pooled-lo
+-- (allocationSize = 50 em ProductPackage/AuditLog): o Hibernate reserva 50 IDs por nextval
+-- e volta a agrupar os INSERTs em batch JDBC (IDENTITY obriga um INSERT por linha).
+--
+-- Com pooled-lo cada nextval devolve o início de uma faixa exclusiva [v, v + 49]. Os INSERTs
+-- nativos (DEFAULT nextval: upsert de entrada, etiquetas, AuditLogWriter) também consomem
+-- uma faixa inteira, então nunca colidem com os IDs do Hibernate — apenas deixam lacunas.
+
+ALTER SEQUENCE packages_id_seq INCREMENT BY 50;
+ALTER SEQUENCE audit_logs_id_seq INCREMENT BY 50;
@@ -0,0 +1,11 @@
+-- V14__Create_Queue_Version.sql
+-- Versão da fila por instância (QueueSync): cada instância incrementa apenas a PRÓPRIA linha,
+-- depois do commit e agrupando as mutações de cada intervalo; as outras leem a tabela
+-- periodicamente e, quando alguma linha mudou, invalidam o estado em memória (ETags,
+-- FifoQueueIndex, QueueStatsEngine). Nenhuma linha é disputada pelas transações de packages.
+
+CREATE TABLE IF NOT EXISTS queue_versions (
+    instance VARCHAR(64) PRIMARY KEY,
+    version BIGINT NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
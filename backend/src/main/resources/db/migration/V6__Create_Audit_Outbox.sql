@@ -0,0 +1,13 @@
+-- V6__Create_Audit_Outbox.sql
+
+-- Outbox da auditoria (modo audit.writer.mode=outbox):
+-- a linha é gravada na mesma transação da operação e um worker em background
+-- move os registros em lote para audit_logs.
+CREATE TABLE IF NOT EXISTS audit_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    user_fullname VARCHAR(100),
+    action VARCHAR(50) NOT NULL,
+    details TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
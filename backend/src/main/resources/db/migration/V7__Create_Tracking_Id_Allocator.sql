@@ -0,0 +1,16 @@
+-- V7__Create_Tracking_Id_Allocator.sql
+
+-- Marca d'água dos tracking IDs gerados para etiquetas (CG000001, CG000002, ...).
+-- Cada instância reserva blocos contíguos com um único UPDATE ... RETURNING,
+-- o que serializa a alocação pelo lock da linha (seguro entre instâncias).
+CREATE TABLE IF NOT EXISTS tracking_id_allocator (
+    prefix VARCHAR(10) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+-- Começa depois do maior CG já existente (incluindo deletados)
+INSERT INTO tracking_id_allocator (prefix, next_value)
+SELECT 'CG', COALESCE(MAX(CAST(SUBSTRING(tracking_id FROM 3) AS BIGINT)), 0) + 1
+FROM packages
+WHERE tracking_id ~ '^CG[0-9]{1,18}$'
+ON CONFLICT (prefix) DO NOTHING;
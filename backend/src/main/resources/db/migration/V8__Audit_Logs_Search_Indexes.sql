@@ -0,0 +1,8 @@
+-- V8__Audit_Logs_Search_Indexes.sql
+
+-- Busca "contém" sem diferenciar maiúsculas (lower(col) LIKE '%x%') usando índices de trigramas
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Os índices de trigramas (username, user_fullname, details) e o da paginação por keyset
+-- (created_at DESC, id DESC) são criados só na V9, já na audit_logs particionada: criá-los
+-- aqui na tabela antiga, que a V9 descarta logo em seguida, dobraria o tempo da migração.
@@ -0,0 +1,52 @@
+-- V9__Partition_Audit_Logs.sql
+
+-- audit_logs passa a ser particionada por mês (RANGE em created_at).
+-- Consultas com filtro de data só leem as partições do período (partition pruning) e a
+-- retenção vira DETACH/DROP de partições antigas (AuditPartitionMaintenance), sem DELETE/VACUUM.
+-- Os dados existentes são copiados nesta migração (em tabelas muito grandes, rode em janela de manutenção).
+
+-- A sequence dos IDs sobrevive à troca de tabela
+ALTER SEQUENCE audit_logs_id_seq OWNED BY NONE;
+
+CREATE TABLE audit_logs_partitioned (
+    id BIGINT NOT NULL DEFAULT nextval('audit_logs_id_seq'),
+    username VARCHAR(50) NOT NULL,
+    user_fullname VARCHAR(100),
+    action VARCHAR(50) NOT NULL,
+    details TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- A chave de partição precisa fazer parte da PK
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Rede de segurança para datas fora das partições criadas (ex.: relógio adiantado)
+CREATE TABLE audit_logs_default PARTITION OF audit_logs_partitioned DEFAULT;
+
+-- Uma partição por mês, do registro mais antigo até 3 meses à frente
+DO $$
+DECLARE
+    m TIMESTAMP WITH TIME ZONE;
+BEGIN
+    m := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM audit_logs), CURRENT_TIMESTAMP));
+    WHILE m < date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '4 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF audit_logs_partitioned FOR VALUES FROM (%L) TO (%L)',
+                       'audit_logs_p' || to_char(m, 'YYYY_MM'), m, m + INTERVAL '1 month');
+        m := m + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO audit_logs_partitioned (id, username, user_fullname, action, details, created_at)
+SELECT id, username, user_fullname, action, details, COALESCE(created_at, CURRENT_TIMESTAMP)
+FROM audit_logs;
+
+DROP TABLE audit_logs;
+ALTER TABLE audit_logs_partitioned RENAME TO audit_logs;
+ALTER SEQUENCE audit_logs_id_seq OWNED BY audit_logs.id;
+
+-- Índices definidos no pai são criados em cada partição: o da V3 (username), os de trigramas
+-- (pg_trgm, habilitado na V8) e o da paginação por keyset (created_at DESC, id DESC)
+CREATE INDEX idx_audit_logs_created_at_id ON audit_logs (created_at DESC, id DESC);
+CREATE INDEX idx_audit_logs_username ON audit_logs (username);
+CREATE INDEX idx_audit_logs_username_trgm ON audit_logs USING gin (lower(username) gin_trgm_ops);
+CREATE INDEX idx_audit_logs_user_fullname_trgm ON audit_logs USING gin (lower(user_fullname) gin_trgm_ops);
+CREATE INDEX idx_audit_logs_details_trgm ON audit_logs USING gin (lower(details) gin_trgm_ops);
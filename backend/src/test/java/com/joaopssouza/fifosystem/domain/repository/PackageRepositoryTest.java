@@ -0,0 +1,69 @@
+package com.joaopssouza.fifosystem.domain.repository;
+
+import com.joaopssouza.fifosystem.domain.entity.ProductPackage;
+import com.joaopssouza.fifosystem.dto.PackageMoveDTO;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Consultas nativas contra um PostgreSQL real (embutido, com as migrações do Flyway):
+ * confere o mapeamento das colunas do RETURNING para os DTOs, que os mocks não cobrem.
+ */
+// Sem cache de segundo nível: a fatia JPA não sobe o provedor JCache, e as consultas testadas não o usam
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PackageRepositoryTest {
+
+    @TestConfiguration
+    static class EmbeddedDatabase {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.builder().start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+
+    @Autowired
+    private PackageRepository packageRepository;
+
+    @Test
+    @DisplayName("moveRua devolve a rua nova e a anterior, cada uma no seu campo do DTO")
+    void shouldMapMoveReturningColumns() {
+        // Arrange
+        LocalDateTime entry = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        ProductPackage pkg = packageRepository.saveAndFlush(ProductPackage.builder()
+                .trackingId("CGMOVE01").buffer("RTS").rua("RUA-01")
+                .profileType("M").profileValue(80).entryTimestamp(entry)
+                .build());
+
+        // Act
+        PackageMoveDTO moved = packageRepository.moveRua(pkg.getId(), "RUA-02");
+        PackageMoveDTO sameRua = packageRepository.moveRua(pkg.getId(), "RUA-02");
+
+        // Assert
+        assertEquals(new PackageMoveDTO(pkg.getId(), "CGMOVE01", "RTS", "RUA-02", "RUA-01",
+                "M", 80, entry, pkg.getVersion() + 1), moved);
+        assertNull(sameRua); // Mesma rua: o UPDATE não altera nenhuma linha
+    }
+}
@@ -0,0 +1,68 @@
+package com.joaopssouza.fifosystem.security;
+
+import com.joaopssouza.fifosystem.domain.entity.Role;
+import com.joaopssouza.fifosystem.domain.entity.User;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("a".repeat(64).getBytes());
+
+    private static JwtTokenProvider provider(long expirationMs) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationDate", expirationMs);
+        ReflectionTestUtils.setField(provider, "verifiedCacheMaxSize", 100L);
+        provider.init();
+        return provider;
+    }
+
+    private static User user() {
+        Role role = new Role();
+        role.setName("admin");
+        role.setPermissions(Set.of());
+        return User.builder().id(1L).username("joao").fullName("João").role(role).build();
+    }
+
+    @Test
+    @DisplayName("Deve validar o token uma vez e reaproveitar as claims do cache")
+    void shouldReturnCachedClaimsForRepeatedToken() {
+        // Arrange
+        JwtTokenProvider provider = provider(60_000);
+        String token = provider.generateToken(user());
+
+        // Act
+        Optional<Claims> first = provider.parseClaims(token);
+        Optional<Claims> second = provider.parseClaims(token);
+
+        // Assert
+        assertTrue(first.isPresent());
+        assertEquals("joao", first.get().getSubject());
+        assertEquals("admin", first.get().get("role", String.class));
+        assertSame(first.get(), second.get()); // Segunda chamada não refez a verificação
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar token adulterado ou expirado")
+    void shouldRejectTamperedAndExpiredTokens() {
+        // Arrange
+        JwtTokenProvider provider = provider(60_000);
+        String token = provider.generateToken(user());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        String expired = provider(-1_000).generateToken(user());
+
+        // Act & Assert
+        assertTrue(provider.parseClaims(tampered).isEmpty());
+        assertTrue(provider.parseClaims(expired).isEmpty());
+        assertFalse(provider.validateToken(null));
+    }
+}
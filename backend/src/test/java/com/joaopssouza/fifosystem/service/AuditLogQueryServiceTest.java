@@ -0,0 +1,95 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.joaopssouza.fifosystem.dto.AuditLogFilter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditLogQueryServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @InjectMocks
+    private AuditLogQueryService auditLogQueryService;
+
+    @Test
+    @DisplayName("Deve montar filtros parametrizados escapando curingas do LIKE")
+    void shouldBuildParameterizedFilters() {
+        // Arrange
+        AuditLogFilter filter = AuditLogFilter.of(" Joao ", null, "ENTRADA", "50%_", "2025-01-01", null);
+
+        // Act
+        AuditLogQueryService.Where where = AuditLogQueryService.where(filter);
+
+        // Assert
+        assertEquals(" WHERE lower(username) LIKE ? AND lower(details) LIKE ? AND action = ? AND created_at >= ?",
+                where.sql());
+        assertEquals(List.of("%joao%", "%50\\%\\_%", "ENTRADA", Timestamp.valueOf(LocalDateTime.of(2025, 1, 1, 0, 0))),
+                where.params);
+    }
+
+    @Test
+    @DisplayName("Deve escrever a página em streaming e devolver o cursor quando há mais linhas")
+    void shouldStreamPageWithNextCursor() throws Exception {
+        // Arrange: o banco devolve size + 1 linhas (3 para uma página de 2)
+        LocalDateTime base = LocalDateTime.of(2025, 5, 10, 12, 0);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(30L, 30L, 20L, 20L);
+        when(rs.getString(anyString())).thenReturn("x");
+        when(rs.getTimestamp("created_at")).thenReturn(
+                Timestamp.valueOf(base), Timestamp.valueOf(base.minusMinutes(1)));
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < 3; i++) handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        auditLogQueryService.writePage(AuditLogFilter.of(null, null, null, null, null, null), null, 2, out);
+
+        // Assert
+        String json = out.toString(StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"items\":[{\"id\":30,"));
+        assertTrue(json.contains("\"createdAt\":\"2025-05-10T11:59\""));
+        String expectedCursor = new KeysetCursor(base.minusMinutes(1), 20L).encode();
+        assertTrue(json.endsWith("\"nextCursor\":\"" + expectedCursor + "\"}"));
+    }
+
+    @Test
+    @DisplayName("Deve escapar campos CSV com vírgula, aspas e quebra de linha (RFC 4180)")
+    void shouldEscapeCsvFields() {
+        // Act & Assert
+        assertEquals("simples", AuditLogQueryService.csv("simples"));
+        assertEquals("\"Silva, João\"", AuditLogQueryService.csv("Silva, João"));
+        assertEquals("\"diz \"\"oi\"\"\"", AuditLogQueryService.csv("diz \"oi\""));
+        assertEquals("\"a\nb\"", AuditLogQueryService.csv("a\nb"));
+        assertEquals("", AuditLogQueryService.csv(null));
+        assertThrows(IllegalArgumentException.class, () -> AuditLogQueryService.ExportFormat.parse("xml"));
+    }
+}
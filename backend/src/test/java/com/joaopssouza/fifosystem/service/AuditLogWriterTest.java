@@ -0,0 +1,95 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.joaopssouza.fifosystem.domain.entity.AuditLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AuditLogWriter writer(String mode, int capacity) {
+        return new AuditLogWriter(jdbcTemplate, transactionManager, mode, capacity, 100, 50, 10, 5000);
+    }
+
+    private static AuditLog log(String details) {
+        return AuditLog.builder()
+                .username("joao")
+                .userFullname("João")
+                .action("ENTRADA")
+                .details(details)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Best-effort: deve drenar a fila em lote ao encerrar")
+    @SuppressWarnings("unchecked")
+    void shouldDrainQueueOnShutdown() {
+        // Arrange
+        AuditLogWriter writer = writer("best-effort", 100);
+        writer.start();
+
+        // Act
+        writer.submit(List.of(log("a"), log("b"), log("c")));
+        writer.stop();
+
+        // Assert: todas as linhas gravadas em audit_logs, nenhum fallback síncrono
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(startsWith("INSERT INTO audit_logs"),
+                anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(3L, writer.stats().get("written"));
+        assertEquals(0L, writer.stats().get("syncFallbacks"));
+    }
+
+    @Test
+    @DisplayName("Best-effort: fila cheia deve gravar de forma síncrona (backpressure)")
+    @SuppressWarnings("unchecked")
+    void shouldFallBackToSyncWriteWhenQueueIsFull() {
+        // Arrange: writer não iniciado -> nada entra na fila
+        AuditLogWriter writer = writer("best-effort", 1);
+
+        // Act
+        writer.submit(List.of(log("a"), log("b")));
+
+        // Assert
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO audit_logs"),
+                argThat((Collection<AuditLog> logs) -> logs.size() == 2), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(2L, writer.stats().get("syncFallbacks"));
+    }
+
+    @Test
+    @DisplayName("Outbox: deve gravar na audit_outbox dentro da transação da operação")
+    @SuppressWarnings("unchecked")
+    void shouldWriteToOutboxInCallerTransaction() {
+        // Arrange
+        AuditLogWriter writer = writer("outbox", 10);
+
+        // Act
+        writer.submit(List.of(log("a")));
+
+        // Assert
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO audit_outbox"),
+                anyCollection(), eq(1), any(ParameterizedPreparedStatementSetter.class));
+        verifyNoInteractions(transactionManager);
+    }
+}
@@ -0,0 +1,80 @@
+package com.joaopssouza.fifosystem.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditPartitionMaintenanceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Deve criar apenas as partições futuras que ainda não existem")
+    void shouldCreateMissingFuturePartitions() {
+        // Arrange
+        AuditPartitionMaintenance maintenance = new AuditPartitionMaintenance(jdbcTemplate, 2, 0, "detach", "UTC");
+        List<String> existing = List.of("audit_logs_default", "audit_logs_p2025_11", "audit_logs_p2025_12");
+
+        // Act
+        List<List<String>> ddl = maintenance.plan(YearMonth.of(2025, 11), existing, Set.of());
+
+        // Assert: só janeiro/2026 falta (novembro e dezembro já existem); retenção desativada
+        assertEquals(List.of(List.of(
+                "CREATE TABLE IF NOT EXISTS audit_logs_p2026_01 PARTITION OF audit_logs "
+                        + "FOR VALUES FROM ('2026-01-01 00:00:00+00:00') TO ('2026-02-01 00:00:00+00:00')"
+        )), ddl);
+    }
+
+    @Test
+    @DisplayName("Deve desanexar (ou apagar) partições mais antigas que a retenção")
+    void shouldExpireOldPartitions() {
+        // Arrange
+        List<String> existing = List.of("audit_logs_default", "audit_logs_p2024_12", "audit_logs_p2025_01",
+                "audit_logs_p2025_02", "audit_logs_p2026_01", "audit_logs_p2026_02", "audit_logs_p2026_03");
+        AuditPartitionMaintenance detach = new AuditPartitionMaintenance(jdbcTemplate, 2, 12, "detach", "UTC");
+        AuditPartitionMaintenance drop = new AuditPartitionMaintenance(jdbcTemplate, 2, 12, "drop", "UTC");
+
+        // Act: em jan/2026 com 12 meses de retenção, mantém de jan/2025 em diante
+        List<List<String>> detachDdl = detach.plan(YearMonth.of(2026, 1), existing, Set.of());
+        List<List<String>> dropDdl = drop.plan(YearMonth.of(2026, 1), existing, Set.of());
+
+        // Assert
+        assertEquals(List.of(List.of("ALTER TABLE audit_logs DETACH PARTITION audit_logs_p2024_12")), detachDdl);
+        assertEquals(List.of(List.of("DROP TABLE audit_logs_p2024_12")), dropDdl);
+        assertNull(AuditPartitionMaintenance.monthOf("audit_logs_default"));
+    }
+
+    @Test
+    @DisplayName("Mês com linhas na partição default é criado movendo as linhas, mesmo no passado")
+    void shouldMoveRowsOutOfDefaultPartition() {
+        // Arrange: manutenção parada por meses; agosto/2025 caiu inteiro na default
+        AuditPartitionMaintenance maintenance = new AuditPartitionMaintenance(jdbcTemplate, 1, 0, "detach",
+                "America/Sao_Paulo");
+        List<String> existing = List.of("audit_logs_default", "audit_logs_p2025_11", "audit_logs_p2025_12");
+
+        // Act
+        List<List<String>> steps = maintenance.plan(YearMonth.of(2025, 11), existing, Set.of(YearMonth.of(2025, 8)));
+
+        // Assert: um único passo (transação) tira a default, cria, move e devolve a default
+        String range = " WHERE created_at >= '2025-08-01 00:00:00-03:00' AND created_at < '2025-09-01 00:00:00-03:00'";
+        assertEquals(List.of(List.of(
+                "ALTER TABLE audit_logs DETACH PARTITION audit_logs_default",
+                "CREATE TABLE IF NOT EXISTS audit_logs_p2025_08 PARTITION OF audit_logs "
+                        + "FOR VALUES FROM ('2025-08-01 00:00:00-03:00') TO ('2025-09-01 00:00:00-03:00')",
+                "INSERT INTO audit_logs SELECT * FROM audit_logs_default" + range,
+                "DELETE FROM audit_logs_default" + range,
+                "ALTER TABLE audit_logs ATTACH PARTITION audit_logs_default DEFAULT"
+        )), steps);
+    }
+}
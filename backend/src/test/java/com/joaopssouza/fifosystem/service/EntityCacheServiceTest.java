@@ -0,0 +1,79 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.joaopssouza.fifosystem.domain.entity.User;
+import com.joaopssouza.fifosystem.security.UserPrincipalCache;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EntityCacheServiceTest {
+
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private SessionFactory sessionFactory; // É também o EntityManagerFactory injetado
+
+    @Mock
+    private Cache cache;
+
+    @InjectMocks
+    private EntityCacheService entityCacheService;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Despeja o usuário de todos os caches na hora e de novo após o commit")
+    void shouldEvictUserNowAndAfterCommit() {
+        // Arrange: transação ativa
+        when(sessionFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        entityCacheService.evictUser(7L, "joao");
+
+        // Assert: despejo imediato
+        verify(cache).evictEntityData(User.class, 7L);
+        verify(cache).evictQueryRegion(EntityCacheService.USER_QUERIES);
+        verify(userPrincipalCache).evict("joao");
+
+        // ...e repetido no afterCommit
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache, times(2)).evictEntityData(User.class, 7L);
+        verify(cache, times(2)).evictQueryRegion(EntityCacheService.USER_QUERIES);
+        verify(userPrincipalCache, times(2)).evict("joao");
+    }
+
+    @Test
+    @DisplayName("Usuário novo (sem id): despeja apenas as consultas por username")
+    void shouldEvictOnlyQueriesForNewUser() {
+        // Arrange: sem transação
+        when(sessionFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+
+        // Act
+        entityCacheService.evictUser(null, "novo");
+
+        // Assert
+        verify(cache, never()).evictEntityData(eq(User.class), any());
+        verify(cache).evictQueryRegion(EntityCacheService.USER_QUERIES);
+        verify(userPrincipalCache).evict("novo");
+    }
+}
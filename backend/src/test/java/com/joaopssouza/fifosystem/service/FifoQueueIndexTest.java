@@ -0,0 +1,146 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.joaopssouza.fifosystem.domain.repository.PackageRepository;
+import com.joaopssouza.fifosystem.dto.PackageSummaryDTO;
+import com.joaopssouza.fifosystem.dto.QueuePositionDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FifoQueueIndexTest {
+
+    @Mock
+    private PackageRepository packageRepository;
+
+    @InjectMocks
+    private FifoQueueIndex fifoQueueIndex;
+
+    private final LocalDateTime base = LocalDateTime.of(2026, 1, 1, 8, 0);
+
+    @Test
+    @DisplayName("Deve reconstruir do banco e responder na ordem de entrada")
+    void shouldRebuildAndAnswerInEntryOrder() {
+        // Arrange: CG2 entrou antes de CG1; CG3 empata com CG2 no horário (desempate pelo id)
+        when(packageRepository.findSummariesByBufferNot("PENDENTE")).thenReturn(List.of(
+                summary(1L, "CG1", "RTS", "RUA-01", base.plusMinutes(5)),
+                summary(2L, "CG2", "RTS", "RUA-02", base),
+                summary(3L, "CG3", "RTS", "RUA-01", base)
+        ));
+
+        // Act
+        fifoQueueIndex.rebuild();
+
+        // Assert
+        assertEquals(List.of("CG2", "CG3"), trackingIds(fifoQueueIndex.next("RTS", null, 2)));
+        assertEquals(List.of("CG3", "CG1"), trackingIds(fifoQueueIndex.next("RTS", "RUA-01", 5)));
+
+        QueuePositionDTO position = fifoQueueIndex.position("CG1").orElseThrow();
+        assertEquals(3, position.bufferPosition());
+        assertEquals(3, position.bufferDepth());
+        assertEquals(2, position.ruaPosition());
+        assertEquals(2, position.ruaDepth());
+    }
+
+    @Test
+    @DisplayName("Deve aplicar entrada, movimentação e saída incrementalmente")
+    @SuppressWarnings("unchecked")
+    void shouldApplyQueueEvents() {
+        // Act
+        fifoQueueIndex.onQueueEvent(event(PackageQueueEvent.Type.ENTERED, 1L, "CG1", "RUA-01", null, base));
+        fifoQueueIndex.onQueueEvent(event(PackageQueueEvent.Type.ENTERED, 2L, "CG2", "RUA-01", null, base.plusMinutes(1)));
+        fifoQueueIndex.onQueueEvent(event(PackageQueueEvent.Type.MOVED, 1L, "CG1", "RUA-02", "RUA-01", base));
+        fifoQueueIndex.onQueueEvent(event(PackageQueueEvent.Type.EXITED, 2L, "CG2", "RUA-01", null, base.plusMinutes(1)));
+
+        // Assert: a movimentação mantém a posição no buffer (ordem por entrada)
+        assertEquals(List.of("CG1"), trackingIds(fifoQueueIndex.next("RTS", null, 10)));
+        assertEquals(List.of(), fifoQueueIndex.next("RTS", "RUA-01", 10));
+        assertEquals("RUA-02", fifoQueueIndex.position("CG1").orElseThrow().rua());
+        assertTrue(fifoQueueIndex.position("CG2").isEmpty());
+
+        Map<String, Object> rts = (Map<String, Object>) fifoQueueIndex.depths().get("RTS");
+        assertEquals(1L, rts.get("total"));
+        assertEquals(Map.of("RUA-01", 0L, "RUA-02", 1L), rts.get("ruas"));
+        verifyNoInteractions(packageRepository);
+    }
+
+    @Test
+    @DisplayName("Evento que chega durante a reconstrução é aplicado depois, não apagado")
+    void shouldApplyEventArrivingDuringRebuild() throws Exception {
+        // Arrange: enquanto a consulta roda, um commit publica a entrada de CG2
+        Thread[] listener = new Thread[1];
+        when(packageRepository.findSummariesByBufferNot("PENDENTE")).thenAnswer(invocation -> {
+            listener[0] = new Thread(() -> fifoQueueIndex.onQueueEvent(
+                    event(PackageQueueEvent.Type.ENTERED, 2L, "CG2", "RUA-01", null, base.plusMinutes(1))));
+            listener[0].start();
+            awaitBlocked(listener[0]);
+            return List.of(summary(1L, "CG1", "RTS", "RUA-01", base));
+        });
+
+        // Act
+        fifoQueueIndex.rebuild();
+        listener[0].join(5000);
+
+        // Assert
+        assertEquals(List.of("CG1", "CG2"), trackingIds(fifoQueueIndex.next("RTS", null, 10)));
+    }
+
+    @Test
+    @DisplayName("Mudança de outra instância reconstrói o índice sem expor um índice vazio")
+    void shouldRebuildOnRemoteQueueChange() {
+        // Arrange: a outra instância registrou CG2; durante a consulta o índice antigo continua visível
+        when(packageRepository.findSummariesByBufferNot("PENDENTE"))
+                .thenReturn(List.of(summary(1L, "CG1", "RTS", "RUA-01", base)))
+                .thenAnswer(invocation -> {
+                    assertEquals(List.of("CG1"), trackingIds(fifoQueueIndex.next("RTS", null, 10)));
+                    return List.of(summary(1L, "CG1", "RTS", "RUA-01", base),
+                            summary(2L, "CG2", "RTS", "RUA-02", base.plusMinutes(1)));
+                });
+        fifoQueueIndex.rebuild();
+
+        // Act
+        fifoQueueIndex.onRemoteQueueChange(new RemoteQueueChangeEvent());
+
+        // Assert
+        assertEquals(List.of("CG1", "CG2"), trackingIds(fifoQueueIndex.next("RTS", null, 10)));
+        assertEquals(2, fifoQueueIndex.position("CG2").orElseThrow().bufferPosition());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar buffer inválido e limite fora da faixa")
+    void shouldValidateNextArguments() {
+        assertThrows(IllegalArgumentException.class, () -> fifoQueueIndex.next("XYZ", null, 1));
+        assertThrows(IllegalArgumentException.class, () -> fifoQueueIndex.next("RTS", null, 0));
+    }
+
+    private static PackageSummaryDTO summary(Long id, String trackingId, String buffer, String rua, LocalDateTime entry) {
+        return new PackageSummaryDTO(id, trackingId, buffer, rua, "P", 250, entry);
+    }
+
+    private static PackageQueueEvent event(PackageQueueEvent.Type type, Long id, String trackingId,
+                                           String rua, String previousRua, LocalDateTime entry) {
+        return new PackageQueueEvent(type, id, trackingId, "RTS", rua, previousRua, "P", 250, entry);
+    }
+
+    // Espera a thread parar no lock do índice (segurado pelo rebuild)
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static List<String> trackingIds(List<PackageSummaryDTO> items) {
+        return items.stream().map(PackageSummaryDTO::trackingId).toList();
+    }
+}
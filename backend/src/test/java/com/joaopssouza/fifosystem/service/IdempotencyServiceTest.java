@@ -0,0 +1,142 @@
+package com.joaopssouza.fifosystem.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(jdbcTemplate, JsonMapper.builder().build(),
+                "memory", 100, 60, 1000, 5000);
+    }
+
+    @Test
+    @DisplayName("Repetição com a mesma chave devolve a resposta gravada sem executar de novo")
+    void shouldReplayStoredResponse() {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+        Map<String, Object> request = Map.of("trackingId", "CG001");
+
+        // Act
+        ResponseEntity<?> first = idempotencyService.execute("k1", "POST /entry", request, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.ok(Map.of("trackingId", "CG001"));
+        });
+        ResponseEntity<?> retry = idempotencyService.execute("k1", "POST /entry", request, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.badRequest().body("O Tracking ID CG001 já está na fila.");
+        });
+
+        // Assert
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals("{\"trackingId\":\"CG001\"}", retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Mesma chave com outro corpo é rejeitada (422)")
+    void shouldRejectKeyReusedWithDifferentRequest() {
+        // Arrange
+        idempotencyService.execute("k1", "POST /entry", Map.of("trackingId", "CG001"),
+                () -> ResponseEntity.noContent().build());
+
+        // Act
+        ResponseEntity<?> reused = idempotencyService.execute("k1", "POST /entry", Map.of("trackingId", "CG002"),
+                () -> fail("Não deve executar"));
+
+        // Assert
+        assertEquals(HttpStatus.UNPROCESSABLE_CONTENT, reused.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Mesmo corpo com as chaves em outra ordem é a mesma requisição")
+    void shouldIgnoreKeyOrderInFingerprint() {
+        // Arrange: corpo do POST /exit chega como Map, na ordem em que veio no JSON
+        AtomicInteger executions = new AtomicInteger();
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("trackingId", "CG001");
+        first.put("reason", "scanner");
+        Map<String, Object> retry = new LinkedHashMap<>();
+        retry.put("reason", "scanner");
+        retry.put("trackingId", "CG001");
+        idempotencyService.execute("k1", "POST /exit", first, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.noContent().build();
+        });
+
+        // Act
+        ResponseEntity<?> replay = idempotencyService.execute("k1", "POST /exit", retry,
+                () -> fail("Não deve executar"));
+
+        // Assert
+        assertEquals(HttpStatus.NO_CONTENT, replay.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("Conflitos transitórios (409) não são gravados e a repetição executa de novo")
+    void shouldNotStoreConflicts() {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+
+        // Act
+        idempotencyService.execute("k1", "DELETE /1", 1L, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Pacote alterado por outra operação.");
+        });
+        ResponseEntity<?> retry = idempotencyService.execute("k1", "DELETE /1", 1L, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.noContent().build();
+        });
+
+        // Assert
+        assertEquals(2, executions.get());
+        assertEquals(HttpStatus.NO_CONTENT, retry.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Modo jdbc: reserva com lease curto e estende ao TTL só ao gravar a resposta")
+    void shouldClaimWithShortLeaseAndExtendOnComplete() {
+        // Arrange: TTL de 60 minutos, lease de 5 s
+        IdempotencyService jdbcService = new IdempotencyService(jdbcTemplate, JsonMapper.builder().build(),
+                "jdbc", 100, 60, 1000, 5000);
+        when(jdbcTemplate.update(startsWith("INSERT INTO idempotency_keys"), anyString(), anyString(), eq(5000L)))
+                .thenReturn(1);
+
+        // Act
+        ResponseEntity<?> response = jdbcService.execute("k1", "POST /entry", Map.of("trackingId", "CG001"),
+                () -> ResponseEntity.ok(Map.of("trackingId", "CG001")));
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(jdbcTemplate).update(startsWith("INSERT INTO idempotency_keys"), anyString(), anyString(), eq(5000L));
+        verify(jdbcTemplate).update(startsWith("UPDATE idempotency_keys"), eq(200), eq(true),
+                eq("{\"trackingId\":\"CG001\"}"), eq(3_600_000L), anyString());
+    }
+}
@@ -2,13 +2,24 @@ package com.joaopssouza.fifosystem.service;
 
 import com.joaopssouza.fifosystem.domain.entity.ProductPackage;
 import com.joaopssouza.fifosystem.domain.repository.PackageRepository;
+import com.joaopssouza.fifosystem.dto.BatchItemResult;
 import com.joaopssouza.fifosystem.dto.PackageEntryRequest;
+import com.joaopssouza.fifosystem.dto.PackageMoveDTO;
+import com.joaopssouza.fifosystem.dto.PackagePageResponse;
+import com.joaopssouza.fifosystem.dto.PackageSummaryDTO;
+import com.joaopssouza.fifosystem.dto.QueueHeadDTO;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -23,6 +34,9 @@ class PackageServiceTest {
     @Mock
     private AuditService auditService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PackageService packageService;
 
@@ -32,19 +46,18 @@ class PackageServiceTest {
         // 1. Arrange (Preparar o cenário)
         PackageEntryRequest request = new PackageEntryRequest("CG001", "RTS", "RUA-01", "P");
         
-        // CORREÇÃO: Mockamos o novo método que o Service usa (findByTrackingIdGlobally)
-        // Retorna null para simular que o pacote NUNCA existiu
-        when(packageRepository.findByTrackingIdGlobally("CG001")).thenReturn(null);
-        
-        // Mock do save para retornar o objeto salvo
-        when(packageRepository.save(any(ProductPackage.class))).thenAnswer(invocation -> {
-            ProductPackage p = invocation.getArgument(0);
-            p.setId(1L); // Simula o ID gerado pelo banco
-            p.setTrackingId("CG001");
-            p.setProfileType("P");
-            p.setProfileValue(250);
-            return p;
-        });
+        // Upsert em um único comando: o banco devolve a linha inserida/reativada
+        when(packageRepository.upsertEntry(eq("CG001"), eq("RTS"), eq("RUA-01"), eq("P"), eq(250),
+                any(LocalDateTime.class))).thenAnswer(invocation -> ProductPackage.builder()
+                        .id(1L) // Simula o ID gerado pelo banco
+                        .trackingId("CG001")
+                        .buffer("RTS")
+                        .rua("RUA-01")
+                        .profileType("P")
+                        .profileValue(250)
+                        .entryTimestamp(invocation.getArgument(5))
+                        .version(0L)
+                        .build());
 
         // 2. Act (Executar a ação)
         ProductPackage result = packageService.registerEntry(request);
@@ -56,6 +69,12 @@ class PackageServiceTest {
         
         // Verifica se o log de auditoria foi chamado
         verify(auditService, times(1)).logAction(eq("ENTRADA"), contains("CG001"));
+
+        // Verifica se o evento da fila foi publicado (stats e WebSocket)
+        verify(eventPublisher).publishEvent(argThat((Object e) ->
+                e instanceof PackageQueueEvent event
+                        && event.type() == PackageQueueEvent.Type.ENTERED
+                        && "CG001".equals(event.trackingId())));
     }
 
     @Test
@@ -64,13 +83,9 @@ class PackageServiceTest {
         // 1. Arrange
         PackageEntryRequest request = new PackageEntryRequest("CG001", "RTS", "RUA-01", "P");
         
-        // CORREÇÃO: Criamos um pacote existente e ATIVO (deletedAt = null)
-        ProductPackage existingPkg = new ProductPackage();
-        existingPkg.setTrackingId("CG001");
-        existingPkg.setDeletedAt(null); // Importante: null significa ativo
-        
-        // O Mock retorna esse pacote existente
-        when(packageRepository.findByTrackingIdGlobally("CG001")).thenReturn(existingPkg);
+        // Pacote existente e ATIVO: o WHERE do ON CONFLICT barra a atualização e nenhuma linha volta
+        when(packageRepository.upsertEntry(eq("CG001"), anyString(), anyString(), anyString(), anyInt(),
+                any(LocalDateTime.class))).thenReturn(null);
 
         // 2. Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -79,8 +94,176 @@ class PackageServiceTest {
 
         assertEquals("O Tracking ID CG001 já está na fila.", exception.getMessage());
 
-        // 3. Verify (Garante que NADA foi salvo e NENHUM log foi gerado)
-        verify(packageRepository, never()).save(any());
+        // 3. Verify (Garante que NENHUM log foi gerado e não houve SELECT prévio)
+        verify(packageRepository, never()).findByTrackingIdGlobally(anyString());
         verify(auditService, never()).logAction(anyString(), anyString());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Deve paginar por cursor usando o último item entregue")
+    void shouldPaginateWithKeysetCursor() {
+        // Arrange: página de tamanho 2 com 3 itens disponíveis
+        LocalDateTime t0 = LocalDateTime.of(2025, 1, 10, 8, 0);
+        List<PackageSummaryDTO> firstRows = List.of(
+                new PackageSummaryDTO(1L, "CG001", "RTS", "RUA-01", "P", 250, t0),
+                new PackageSummaryDTO(2L, "CG002", "RTS", "RUA-01", "M", 80, t0.plusMinutes(1)),
+                new PackageSummaryDTO(3L, "CG003", "RTS", "RUA-01", "G", 10, t0.plusMinutes(2)));
+        when(packageRepository.findSummaryPage(eq("PENDENTE"), eq("RTS"), isNull(), any(Limit.class)))
+                .thenReturn(firstRows);
+
+        // Act
+        PackagePageResponse first = packageService.findPage("RTS", "", null, 2);
+
+        // Assert
+        assertEquals(2, first.items().size());
+        assertNotNull(first.nextCursor());
+
+        // Segunda página: o cursor aponta para o item 2
+        when(packageRepository.findSummaryPageAfter(eq("PENDENTE"), eq("RTS"), isNull(),
+                eq(t0.plusMinutes(1)), eq(2L), any(Limit.class)))
+                .thenReturn(List.of(firstRows.get(2)));
+
+        PackagePageResponse second = packageService.findPage("RTS", null, first.nextCursor(), 2);
+
+        assertEquals(1, second.items().size());
+        assertEquals("CG003", second.items().get(0).trackingId());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Deve continuar a paginação após item sem entryTimestamp")
+    void shouldPaginatePastNullEntryTimestamp() {
+        // Arrange: o último item da primeira página não tem entryTimestamp (vai para o fim)
+        LocalDateTime t0 = LocalDateTime.of(2025, 1, 10, 8, 0);
+        List<PackageSummaryDTO> firstRows = List.of(
+                new PackageSummaryDTO(1L, "CG001", "RTS", "RUA-01", "P", 250, t0),
+                new PackageSummaryDTO(5L, "CG005", "RTS", "RUA-01", "M", 80, null),
+                new PackageSummaryDTO(7L, "CG007", "RTS", "RUA-01", "G", 10, null));
+        when(packageRepository.findSummaryPage(eq("PENDENTE"), eq("RTS"), isNull(), any(Limit.class)))
+                .thenReturn(firstRows);
+        when(packageRepository.findSummaryPageAfterUntimed(eq("PENDENTE"), eq("RTS"), isNull(),
+                eq(5L), any(Limit.class)))
+                .thenReturn(List.of(firstRows.get(2)));
+
+        // Act
+        PackagePageResponse first = packageService.findPage("RTS", null, null, 2);
+        PackagePageResponse second = packageService.findPage("RTS", null, first.nextCursor(), 2);
+
+        // Assert
+        KeysetCursor cursor = KeysetCursor.decode(first.nextCursor());
+        assertNull(cursor.timestamp());
+        assertEquals(5L, cursor.id());
+        assertEquals(1, second.items().size());
+        assertEquals("CG007", second.items().get(0).trackingId());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar cursor inválido")
+    void shouldRejectInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> packageService.findPage(null, null, "lixo", 10));
+        verifyNoInteractions(packageRepository);
+    }
+
+    @Test
+    @DisplayName("Lote de entrada: resolve IDs em uma consulta e reporta erro por item")
+    void shouldRegisterEntryBatchWithPerItemResults() {
+        // Arrange: CG001 novo, CG002 já ativo na fila, CG001 repetido no lote
+        ProductPackage active = new ProductPackage();
+        active.setTrackingId("CG002");
+        when(packageRepository.findAllByTrackingIdGlobally(anyCollection())).thenReturn(List.of(active));
+        when(packageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<PackageEntryRequest> requests = List.of(
+                new PackageEntryRequest("CG001", "RTS", "RUA-01", "P"),
+                new PackageEntryRequest("CG002", "RTS", "RUA-01", "M"),
+                new PackageEntryRequest("CG001", "EHA", "RUA-02", "G"));
+
+        // Act
+        List<BatchItemResult> results = packageService.registerEntryBatch(requests);
+
+        // Assert
+        assertTrue(results.get(0).success());
+        assertFalse(results.get(1).success());
+        assertEquals("O Tracking ID CG002 já está na fila.", results.get(1).message());
+        assertFalse(results.get(2).success());
+
+        verify(packageRepository, times(1)).findAllByTrackingIdGlobally(anyCollection());
+        verify(packageRepository, never()).findByTrackingIdGlobally(anyString());
+        verify(auditService).logActions(eq("ENTRADA"), argThat(details -> details.size() == 1));
+    }
+
+    @Test
+    @DisplayName("Cabeça da fila: uma consulta por buffer e idade do item mais antigo")
+    void shouldReturnQueueHeadPerBuffer() {
+        // Arrange: RTS com um item de 10 minutos, EHA e SAL vazios
+        PackageSummaryDTO oldest = new PackageSummaryDTO(1L, "T1", "RTS", "RTS-01", "P", 250,
+                LocalDateTime.now().minusMinutes(10));
+        when(packageRepository.findHeadByBuffer(eq("RTS"), any(Limit.class))).thenReturn(List.of(oldest));
+        when(packageRepository.findHeadByBuffer(eq("EHA"), any(Limit.class))).thenReturn(List.of());
+        when(packageRepository.findHeadByBuffer(eq("SAL"), any(Limit.class))).thenReturn(List.of());
+
+        // Act
+        List<QueueHeadDTO> heads = packageService.findHead(null, null, 1);
+
+        // Assert
+        assertEquals(3, heads.size());
+        assertEquals("RTS", heads.get(0).buffer());
+        assertEquals(List.of(oldest), heads.get(0).items());
+        assertTrue(heads.get(0).oldestAgeSeconds() >= 600);
+        assertEquals(0, heads.get(1).oldestAgeSeconds());
+        verify(packageRepository, never()).findHeadByBufferAndRua(anyString(), anyString(), any(Limit.class));
+
+        // Buffer inválido e limite fora da faixa
+        assertThrows(IllegalArgumentException.class, () -> packageService.findHead("XYZ", null, 1));
+        assertThrows(IllegalArgumentException.class, () -> packageService.findHead("RTS", null, 101));
+    }
+
+    @Test
+    @DisplayName("Saída e movimentação: um único UPDATE, sem buscar o pacote antes")
+    void shouldExitAndMoveWithSingleStatement() {
+        // Arrange
+        ProductPackage exited = ProductPackage.builder()
+                .id(1L).trackingId("CG001").buffer("RTS").rua("RUA-01").version(1L).build();
+        when(packageRepository.exitByTrackingId("CG001")).thenReturn(exited);
+        when(packageRepository.exitByTrackingId("CG002")).thenReturn(null);
+        when(packageRepository.moveRua(2L, "RUA-02")).thenReturn(new PackageMoveDTO(2L, "CG003", "EHA",
+                "RUA-02", "RUA-01", "M", 500, LocalDateTime.now(), 1L));
+
+        // Act
+        boolean first = packageService.registerExitByTrackingId("CG001");
+        boolean second = packageService.registerExitByTrackingId("CG002");
+        PackageMoveDTO moved = packageService.registerMove(2L, "RUA-02");
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second); // Já saiu (ou não existe): nada auditado
+        assertEquals("RUA-01", moved.previousRua());
+        verify(auditService).logAction("SAIDA", "Pacote CG001 saiu do buffer RTS");
+        verify(auditService).logAction("MOVIMENTACAO", "Pacote CG003 movido da rua RUA-01 para RUA-02");
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof PackageQueueEvent event
+                && event.type() == PackageQueueEvent.Type.MOVED && "RUA-01".equals(event.previousRua())));
+        verify(packageRepository, never()).findById(anyLong());
+        verify(packageRepository, never()).findByTrackingIdGlobally(anyString());
+    }
+
+    @Test
+    @DisplayName("Movimentação sem linha de volta: mesma rua não audita, pacote inexistente falha")
+    void shouldHandleMoveWithoutReturnedRow() {
+        // Arrange
+        ProductPackage pkg = ProductPackage.builder()
+                .id(1L).trackingId("CG001").buffer("RTS").rua("RUA-01").version(0L).build();
+        when(packageRepository.moveRua(anyLong(), eq("RUA-01"))).thenReturn(null);
+        when(packageRepository.findById(1L)).thenReturn(Optional.of(pkg));
+        when(packageRepository.findById(9L)).thenReturn(Optional.empty());
+
+        // Act
+        PackageMoveDTO same = packageService.registerMove(1L, "RUA-01");
+
+        // Assert
+        assertEquals("RUA-01", same.rua());
+        assertThrows(IllegalArgumentException.class, () -> packageService.registerMove(9L, "RUA-01"));
+        verifyNoInteractions(auditService, eventPublisher);
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,23 @@
 package com.joaopssouza.fifosystem.service;
 
 import com.joaopssouza.fifosystem.domain.repository.PackageRepository;
+import com.joaopssouza.fifosystem.dto.LabelConfirmResult;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -19,6 +26,12 @@ class QrCodeServiceTest {
     @Mock
     private PackageRepository packageRepository;
 
+    @Mock
+    private TrackingIdAllocator trackingIdAllocator;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     @InjectMocks
     private QrCodeService qrCodeService;
 
@@ -27,8 +40,9 @@ class QrCodeServiceTest {
     void shouldGenerateSequentialIdsWhenDbIsEmpty() {
         // Arrange
         int quantity = 3;
+        when(trackingIdAllocator.allocate(3)).thenReturn(1L);
         // Mock: Nenhum ID existe
-        when(packageRepository.existsByTrackingIdGlobally(anyString())).thenReturn(false);
+        when(packageRepository.findExistingTrackingIdsGlobally(anyCollection())).thenReturn(List.of());
 
         // Act
         List<String> result = qrCodeService.generateData(quantity);
@@ -38,6 +52,10 @@ class QrCodeServiceTest {
         assertEquals("CG000001", result.get(0));
         assertEquals("CG000002", result.get(1));
         assertEquals("CG000003", result.get(2));
+
+        // Verify: uma única checagem de existência para a faixa inteira
+        verify(packageRepository, times(1)).findExistingTrackingIdsGlobally(anyCollection());
+        verify(packageRepository, never()).existsByTrackingIdGlobally(anyString());
     }
 
     @Test
@@ -47,15 +65,14 @@ class QrCodeServiceTest {
         int quantity = 2; // Queremos 2 novos códigos
 
         // Cenário:
-        // CG000001 -> JÁ EXISTE (deve pular)
-        // CG000002 -> Disponível (deve pegar)
-        // CG000003 -> JÁ EXISTE (deve pular)
-        // CG000004 -> Disponível (deve pegar)
-
-        when(packageRepository.existsByTrackingIdGlobally("CG000001")).thenReturn(true);
-        when(packageRepository.existsByTrackingIdGlobally("CG000002")).thenReturn(false);
-        when(packageRepository.existsByTrackingIdGlobally("CG000003")).thenReturn(true);
-        when(packageRepository.existsByTrackingIdGlobally("CG000004")).thenReturn(false);
+        // Faixa 1: CG000001 -> JÁ EXISTE (deve pular), CG000002 -> Disponível
+        // Faixa 2 (1 faltante): CG000003 -> Disponível
+        when(trackingIdAllocator.allocate(2)).thenReturn(1L);
+        when(trackingIdAllocator.allocate(1)).thenReturn(3L);
+        when(packageRepository.findExistingTrackingIdsGlobally(List.of("CG000001", "CG000002")))
+                .thenReturn(List.of("CG000001"));
+        when(packageRepository.findExistingTrackingIdsGlobally(List.of("CG000003")))
+                .thenReturn(List.of());
 
         // Act
         List<String> result = qrCodeService.generateData(quantity);
@@ -63,10 +80,31 @@ class QrCodeServiceTest {
         // Assert
         assertEquals(2, result.size()); // Garante que retornou a quantidade pedida
         assertEquals("CG000002", result.get(0)); // O primeiro válido
-        assertEquals("CG000004", result.get(1)); // O segundo válido
+        assertEquals("CG000003", result.get(1)); // O segundo válido (nova faixa)
+
+        // Verify: uma reserva extra só para o que faltou
+        verify(trackingIdAllocator).allocate(1);
+    }
 
-        // Verify: Confirma que o serviço consultou o banco para verificar a existência
-        verify(packageRepository).existsByTrackingIdGlobally("CG000001");
-        verify(packageRepository).existsByTrackingIdGlobally("CG000003");
+    @Test
+    @DisplayName("Deve confirmar etiquetas em blocos e contar as duplicadas")
+    void shouldConfirmLabelsInChunksAndCountDuplicates() {
+        // Arrange
+        ReflectionTestUtils.setField(qrCodeService, "confirmChunkSize", 2);
+        List<String> ids = List.of("CG000001", "CG000002", "CG000003", "CG000004", "CG000005");
+
+        // Blocos de 2, 2 e 1: um ID do segundo bloco já existia
+        when(jdbcTemplate.update(startsWith("INSERT INTO packages"), any(PreparedStatementSetter.class)))
+                .thenReturn(2, 1, 1);
+
+        // Act
+        LabelConfirmResult result = qrCodeService.confirmData(ids);
+
+        // Assert
+        assertEquals(5, result.requested());
+        assertEquals(4, result.inserted());
+        assertEquals(1, result.duplicates());
+        verify(jdbcTemplate, times(3)).update(anyString(), any(PreparedStatementSetter.class));
+        verify(packageRepository, never()).saveAll(any());
     }
-}
\ No newline at end of file
+}
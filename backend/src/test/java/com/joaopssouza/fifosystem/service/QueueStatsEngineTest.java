@@ -0,0 +1,162 @@
+package com.joaopssouza.fifosystem.service;
+
+import com.joaopssouza.fifosystem.domain.repository.PackageRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueueStatsEngineTest {
+
+    @Mock
+    private PackageRepository packageRepository;
+
+    @InjectMocks
+    private QueueStatsEngine queueStatsEngine;
+
+    @Test
+    @DisplayName("Deve reconstruir os agregados a partir do banco")
+    @SuppressWarnings("unchecked")
+    void shouldRebuildFromDatabase() {
+        // Arrange: 2 itens RTS (valor 330) e 1 item SAL
+        long entry = LocalDateTime.now().minusMinutes(10).atZone(ZoneId.systemDefault()).toEpochSecond();
+        when(packageRepository.aggregateActiveByBuffer("PENDENTE")).thenReturn(List.of(
+                new Object[]{"RTS", 2L, 330L, 2L, entry * 2},
+                new Object[]{"SAL", 1L, 0L, 1L, entry}
+        ));
+
+        // Act
+        queueStatsEngine.rebuild();
+        Map<String, Object> stats = queueStatsEngine.snapshot();
+
+        // Assert
+        Map<String, Long> counts = (Map<String, Long>) stats.get("counts");
+        Map<String, Double> avgTimes = (Map<String, Double>) stats.get("avgTimes");
+        assertEquals(2L, counts.get("RTS"));
+        assertEquals(1L, counts.get("SAL"));
+        assertEquals(2L, stats.get("backlogCount")); // SAL fica fora do backlog
+        assertEquals(330L, stats.get("backlogValue"));
+        assertEquals(600.0, avgTimes.get("RTS"), 5.0);
+    }
+
+    @Test
+    @DisplayName("Mudança de outra instância deve reler os agregados do banco")
+    @SuppressWarnings("unchecked")
+    void shouldRebuildOnRemoteQueueChange() {
+        // Arrange: a contagem local tem 1 RTS; no banco (outra instância registrou mais) há 3
+        long entry = LocalDateTime.now().minusMinutes(10).atZone(ZoneId.systemDefault()).toEpochSecond();
+        queueStatsEngine.onEntry("RTS", 250, LocalDateTime.now());
+        when(packageRepository.aggregateActiveByBuffer("PENDENTE")).thenReturn(List.<Object[]>of(
+                new Object[]{"RTS", 3L, 750L, 3L, entry * 3}));
+
+        // Act
+        queueStatsEngine.onRemoteQueueChange(new RemoteQueueChangeEvent());
+
+        // Assert
+        Map<String, Long> counts = (Map<String, Long>) queueStatsEngine.snapshot().get("counts");
+        assertEquals(3L, counts.get("RTS"));
+    }
+
+    @Test
+    @DisplayName("Movimentação de rua não deve alterar os agregados")
+    @SuppressWarnings("unchecked")
+    void shouldIgnoreMoveEvents() {
+        // Arrange
+        queueStatsEngine.onEntry("RTS", 250, LocalDateTime.now());
+        PackageQueueEvent move = new PackageQueueEvent(PackageQueueEvent.Type.MOVED, 1L, "CG001",
+                "RTS", "RUA-02", "RUA-01", "P", 250, LocalDateTime.now());
+
+        // Act
+        queueStatsEngine.onQueueEvent(move);
+
+        // Assert
+        Map<String, Long> counts = (Map<String, Long>) queueStatsEngine.snapshot().get("counts");
+        assertEquals(1L, counts.get("RTS"));
+    }
+
+    @Test
+    @DisplayName("Deve aplicar entradas e saídas incrementalmente")
+    @SuppressWarnings("unchecked")
+    void shouldApplyEntryAndExitIncrementally() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+
+        // Act
+        queueStatsEngine.onEntry("EHA", 80, now);
+        queueStatsEngine.onEntry("EHA", 10, now);
+        queueStatsEngine.onEntry("PENDENTE", 0, now); // Ignorado
+        queueStatsEngine.onExit("EHA", 80, now);
+        Map<String, Object> stats = queueStatsEngine.snapshot();
+
+        // Assert
+        Map<String, Long> counts = (Map<String, Long>) stats.get("counts");
+        Map<String, Long> values = (Map<String, Long>) stats.get("values");
+        assertEquals(1L, counts.get("EHA"));
+        assertEquals(10L, values.get("EHA"));
+        assertEquals(1L, stats.get("backlogCount"));
+        verifyNoInteractions(packageRepository);
+    }
+
+    @Test
+    @DisplayName("Snapshot em um instante fixo é determinístico (base do ETag do /stats)")
+    @SuppressWarnings("unchecked")
+    void shouldComputeAverageAtGivenInstant() {
+        // Arrange: um item RTS que entrou 120 s antes do instante consultado
+        LocalDateTime entry = LocalDateTime.now().withNano(0);
+        long entryEpoch = entry.atZone(ZoneId.systemDefault()).toEpochSecond();
+        queueStatsEngine.onEntry("RTS", 250, entry);
+
+        // Act
+        Map<String, Object> first = queueStatsEngine.snapshot(entryEpoch + 120);
+        Map<String, Object> second = queueStatsEngine.snapshot(entryEpoch + 120);
+
+        // Assert
+        assertEquals(first, second);
+        assertEquals(120.0, ((Map<String, Double>) first.get("avgTimes")).get("RTS"));
+    }
+
+    @Test
+    @DisplayName("Entrada publicada durante a reconstrução é somada depois, não apagada")
+    @SuppressWarnings("unchecked")
+    void shouldApplyEntryArrivingDuringRebuild() throws Exception {
+        // Arrange: enquanto a consulta roda, um commit publica mais uma entrada em RTS
+        long entry = LocalDateTime.now().minusMinutes(10).atZone(ZoneId.systemDefault()).toEpochSecond();
+        Thread[] listener = new Thread[1];
+        when(packageRepository.aggregateActiveByBuffer("PENDENTE")).thenAnswer(invocation -> {
+            listener[0] = new Thread(() -> queueStatsEngine.onEntry("RTS", 250, LocalDateTime.now()));
+            listener[0].start();
+            awaitBlocked(listener[0]);
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(new Object[]{"RTS", 2L, 330L, 2L, entry * 2});
+            return rows;
+        });
+
+        // Act
+        queueStatsEngine.rebuild();
+        listener[0].join(5000);
+
+        // Assert
+        Map<String, Long> counts = (Map<String, Long>) queueStatsEngine.snapshot().get("counts");
+        assertEquals(3L, counts.get("RTS"));
+    }
+
+    // Espera a thread parar no lock do engine (segurado pelo rebuild)
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.joaopssouza.fifosystem.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueueSyncTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    @DisplayName("Deve publicar as mutações locais uma vez por intervalo e avisar só em mudanças remotas")
+    void shouldPublishLocalChangesAndDetectRemoteOnes() {
+        // Arrange: a outra instância está na versão 3, depois passa para 4
+        QueueSync queueSync = new QueueSync(jdbcTemplate, eventPublisher, true);
+        when(jdbcTemplate.query(startsWith("SELECT instance, version"), any(RowMapper.class), anyString()))
+                .thenReturn(List.of(Map.entry("outra", 3L)), List.of(Map.entry("outra", 3L)),
+                        List.of(Map.entry("outra", 4L)));
+
+        // Act: três eventos locais no mesmo intervalo, depois dois intervalos sem mutações
+        for (int i = 0; i < 3; i++) queueSync.onQueueEvent(event());
+        queueSync.sync();
+        queueSync.sync();
+        queueSync.sync();
+
+        // Assert: um único incremento da própria linha; um aviso na primeira leitura e outro na mudança
+        verify(jdbcTemplate, times(1)).update(startsWith("INSERT INTO queue_versions"), anyString());
+        verify(eventPublisher, times(2)).publishEvent(any(RemoteQueueChangeEvent.class));
+    }
+
+    @Test
+    @DisplayName("Não deve acessar o banco quando desativado")
+    void shouldDoNothingWhenDisabled() {
+        // Arrange
+        QueueSync queueSync = new QueueSync(jdbcTemplate, eventPublisher, false);
+
+        // Act
+        queueSync.onQueueEvent(event());
+        queueSync.sync();
+
+        // Assert
+        verifyNoInteractions(jdbcTemplate, eventPublisher);
+    }
+
+    private static PackageQueueEvent event() {
+        return new PackageQueueEvent(PackageQueueEvent.Type.ENTERED, 1L, "CG001",
+                "RTS", "RUA-01", null, "P", 250, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,45 @@
+package com.joaopssouza.fifosystem.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueVersionTest {
+
+    @Test
+    @DisplayName("ETag muda a cada evento da fila e separa recursos e janelas")
+    void shouldChangeETagOnEveryQueueEvent() {
+        // Arrange
+        QueueVersion queueVersion = new QueueVersion();
+        String before = queueVersion.etag("stats");
+
+        // Act
+        queueVersion.onQueueEvent(new PackageQueueEvent(PackageQueueEvent.Type.ENTERED, 1L, "CG001",
+                "RTS", "RUA-01", null, "P", 250, LocalDateTime.now()));
+
+        // Assert
+        assertEquals(1, queueVersion.current());
+        assertNotEquals(before, queueVersion.etag("stats"));
+        assertEquals(queueVersion.etag("stats"), queueVersion.etag("stats")); // Estável sem mudanças
+        assertNotEquals(queueVersion.etag("stats", 60), queueVersion.etag("stats", 120));
+        assertTrue(before.startsWith("\"") && before.endsWith("\"")); // ETag forte
+    }
+
+    @Test
+    @DisplayName("ETag muda quando outra instância altera a fila")
+    void shouldChangeETagOnRemoteQueueChange() {
+        // Arrange
+        QueueVersion queueVersion = new QueueVersion();
+        String before = queueVersion.etag("packages");
+
+        // Act
+        queueVersion.onRemoteQueueChange(new RemoteQueueChangeEvent());
+
+        // Assert
+        assertEquals(1, queueVersion.current());
+        assertNotEquals(before, queueVersion.etag("packages"));
+    }
+}
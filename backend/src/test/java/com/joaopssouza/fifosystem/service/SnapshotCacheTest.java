@@ -0,0 +1,118 @@
+package com.joaopssouza.fifosystem.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotCacheTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    @DisplayName("Requisições simultâneas pelo mesmo ETag disparam um único cálculo")
+    void shouldCoalesceConcurrentRequests() throws Exception {
+        // Arrange
+        SnapshotCache cache = new SnapshotCache(jsonMapper, 60_000);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<SnapshotCache.Snapshot>> results = new ArrayList<>();
+        results.add(executor.submit(() -> cache.get("packages", "\"v1\"", () -> {
+            calls.incrementAndGet();
+            computing.countDown();
+            await(release);
+            return List.of(Map.of("trackingId", "CG001"));
+        })));
+        computing.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 7; i++) {
+            results.add(executor.submit(() -> cache.get("packages", "\"v1\"", () -> {
+                calls.incrementAndGet();
+                return List.of();
+            })));
+        }
+        Thread.sleep(100); // Dá tempo das demais chegarem enquanto a primeira calcula
+        release.countDown();
+
+        // Assert
+        SnapshotCache.Snapshot first = results.getFirst().get(5, TimeUnit.SECONDS);
+        for (Future<SnapshotCache.Snapshot> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1L, cache.stats().get("builds"));
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("ETag novo (mutação na fila) descarta o snapshot anterior")
+    void shouldRebuildWhenETagChanges() {
+        // Arrange
+        SnapshotCache cache = new SnapshotCache(jsonMapper, 60_000);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        cache.get("packages", "\"v1\"", () -> List.of(calls.incrementAndGet()));
+        SnapshotCache.Snapshot cached = cache.get("packages", "\"v1\"", () -> List.of(calls.incrementAndGet()));
+        SnapshotCache.Snapshot rebuilt = cache.get("packages", "\"v2\"", () -> List.of(calls.incrementAndGet()));
+
+        // Assert
+        assertEquals("[1]", new String(cached.json(), StandardCharsets.UTF_8));
+        assertEquals("[2]", new String(rebuilt.json(), StandardCharsets.UTF_8));
+        assertEquals("\"v2\"", rebuilt.etag());
+        assertEquals(1L, cache.stats().get("hits"));
+    }
+
+    @Test
+    @DisplayName("Versão gzip descomprime para o mesmo JSON")
+    void shouldKeepGzipInSyncWithJson() throws Exception {
+        // Arrange
+        SnapshotCache cache = new SnapshotCache(jsonMapper, 60_000);
+
+        // Act
+        SnapshotCache.Snapshot snapshot = cache.get("stats", "\"s1\"", () -> Map.of("total", 42));
+
+        // Assert
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.gzip()))) {
+            assertArrayEquals(snapshot.json(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Falha no cálculo não fica em cache e é repassada")
+    void shouldNotCacheFailures() {
+        // Arrange
+        SnapshotCache cache = new SnapshotCache(jsonMapper, 60_000);
+
+        // Act / Assert
+        assertThrows(IllegalStateException.class,
+                () -> cache.get("packages", "\"v1\"", () -> { throw new IllegalStateException("banco fora"); }));
+        SnapshotCache.Snapshot snapshot = cache.get("packages", "\"v1\"", List::of);
+        assertEquals("[]", new String(snapshot.json(), StandardCharsets.UTF_8));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
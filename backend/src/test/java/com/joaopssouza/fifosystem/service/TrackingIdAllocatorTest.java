@@ -0,0 +1,58 @@
+package com.joaopssouza.fifosystem.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrackingIdAllocatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Deve servir faixas contíguas do bloco em memória com uma única reserva no banco")
+    void shouldServeRangesFromReservedBlock() {
+        // Arrange
+        TrackingIdAllocator allocator = new TrackingIdAllocator(jdbcTemplate, transactionManager, 100);
+        when(jdbcTemplate.queryForObject(startsWith("UPDATE tracking_id_allocator"), eq(Long.class), eq(100), eq("CG"), eq(100)))
+                .thenReturn(501L);
+
+        // Act
+        long first = allocator.allocate(10);
+        long second = allocator.allocate(20);
+
+        // Assert
+        assertEquals(501L, first);
+        assertEquals(511L, second);
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve reservar um bloco novo do tamanho pedido quando a faixa não cabe no bloco atual")
+    void shouldReserveNewBlockForLargeRange() {
+        // Arrange
+        TrackingIdAllocator allocator = new TrackingIdAllocator(jdbcTemplate, transactionManager, 100);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(100), eq("CG"), eq(100))).thenReturn(1L);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(500), eq("CG"), eq(500))).thenReturn(101L);
+
+        // Act
+        allocator.allocate(90);
+        long start = allocator.allocate(500); // Sobram só 10 no bloco: precisa de faixa contígua nova
+
+        // Assert
+        assertEquals(101L, start);
+        assertEquals("CG000101", TrackingIdAllocator.format(start));
+    }
+}
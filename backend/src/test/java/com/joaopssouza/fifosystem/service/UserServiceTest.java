@@ -31,6 +31,9 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private EntityCacheService entityCacheService;
+
     @InjectMocks
     private UserService userService;
 
@@ -56,6 +59,7 @@ class UserServiceTest {
             user.getPasswordHash().equals("encoded_hash_123") &&
             user.getRole().getName().equals("fifo")
         ));
+        verify(entityCacheService).evictUser(null, "joao"); // "Não encontrado" não pode continuar no cache
     }
 
     @Test
@@ -96,6 +100,7 @@ class UserServiceTest {
         String newPass = "novaSenha123";
         User mockUser = new User();
         mockUser.setId(userId);
+        mockUser.setUsername("joao");
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(mockUser));
         when(passwordEncoder.encode(newPass)).thenReturn("new_encoded_hash");
@@ -107,5 +112,6 @@ class UserServiceTest {
         verify(userRepository).save(argThat(user -> 
             user.getPasswordHash().equals("new_encoded_hash")
         ));
+        verify(entityCacheService).evictUser(userId, "joao"); // Senha antiga não pode continuar no cache
     }
 }
\ No newline at end of file
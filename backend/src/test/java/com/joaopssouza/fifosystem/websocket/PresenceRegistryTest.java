@@ -0,0 +1,100 @@
+package com.joaopssouza.fifosystem.websocket;
+
+import com.joaopssouza.fifosystem.domain.entity.Role;
+import com.joaopssouza.fifosystem.domain.entity.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresenceRegistryTest {
+
+    private final PresenceRegistry presenceRegistry = new PresenceRegistry();
+
+    @Test
+    @DisplayName("Várias sessões do mesmo usuário geram um único user_online e user_offline")
+    void shouldCountSessionsPerUser() {
+        // Arrange
+        User joao = user(1L, "joao");
+
+        // Act & Assert: duas abas abertas -> um delta online
+        presenceRegistry.connected(joao);
+        presenceRegistry.connected(joao);
+        PresenceRegistry.Delta delta = presenceRegistry.drain();
+        assertEquals(1, delta.online().size());
+        assertEquals("joao", delta.online().getFirst().get("username"));
+
+        // Fecha uma aba: continua online, nada a enviar
+        presenceRegistry.disconnected(joao);
+        assertTrue(presenceRegistry.drain().isEmpty());
+        assertEquals(1, presenceRegistry.snapshot().size());
+
+        // Fecha a última: um delta offline
+        presenceRegistry.disconnected(joao);
+        assertEquals(List.of(1L), presenceRegistry.drain().offline());
+        assertTrue(presenceRegistry.snapshot().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Reconexão dentro da mesma janela não gera mensagem")
+    void shouldCoalesceReconnectsWithinWindow() {
+        // Arrange: usuário já anunciado como online
+        User maria = user(2L, "maria");
+        presenceRegistry.connected(maria);
+        presenceRegistry.drain();
+
+        // Act: cai e volta antes da próxima janela
+        presenceRegistry.disconnected(maria);
+        presenceRegistry.connected(maria);
+
+        // Assert
+        assertTrue(presenceRegistry.drain().isEmpty());
+        assertEquals(1, presenceRegistry.onlineCount());
+    }
+
+    @Test
+    @DisplayName("Quem sai antes da drenagem não fica como fantasma na lista de quem acabou de se inscrever")
+    void shouldBuildSnapshotFromAnnouncedUsers() {
+        // Arrange: ana já anunciada; pedro conecta e a nova sessão recebe a lista antes da drenagem
+        User ana = user(3L, "ana");
+        User pedro = user(4L, "pedro");
+        presenceRegistry.connected(ana);
+        presenceRegistry.drain();
+        presenceRegistry.connected(pedro);
+
+        // Act
+        List<Map<String, Object>> snapshot = presenceRegistry.snapshot();
+        presenceRegistry.disconnected(pedro);
+        PresenceRegistry.Delta delta = presenceRegistry.drain();
+
+        // Assert: pedro não estava na lista, então nenhum user_offline é necessário (nem enviado)
+        assertEquals(List.of("ana"), snapshot.stream().map(info -> info.get("username")).toList());
+        assertTrue(delta.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Quem continua online chega uma única vez: pelo delta, não pela lista e pelo delta")
+    void shouldNotDuplicateUserOnlineAfterSnapshot() {
+        // Arrange
+        User pedro = user(4L, "pedro");
+        presenceRegistry.connected(pedro);
+
+        // Act
+        List<Map<String, Object>> snapshot = presenceRegistry.snapshot();
+        PresenceRegistry.Delta delta = presenceRegistry.drain();
+
+        // Assert
+        assertTrue(snapshot.isEmpty());
+        assertEquals(1, delta.online().size());
+        assertEquals(List.of(delta.online().getFirst()), presenceRegistry.snapshot());
+    }
+
+    private static User user(Long id, String username) {
+        Role role = new Role();
+        role.setName("operator");
+        return User.builder().id(id).username(username).fullName(username.toUpperCase()).role(role).build();
+    }
+}
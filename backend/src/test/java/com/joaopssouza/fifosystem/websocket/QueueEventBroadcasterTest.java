@@ -0,0 +1,65 @@
+package com.joaopssouza.fifosystem.websocket;
+
+import com.joaopssouza.fifosystem.service.PackageQueueEvent;
+import com.joaopssouza.fifosystem.service.QueueStatsEngine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class QueueEventBroadcasterTest {
+
+    @Test
+    @DisplayName("Commits concorrentes enfileiram os deltas na ordem do seq")
+    @SuppressWarnings("unchecked")
+    void shouldEnqueueInSequenceOrderUnderConcurrency() throws Exception {
+        // Arrange
+        DashboardWebSocketHandler handler = mock(DashboardWebSocketHandler.class);
+        QueueStatsEngine statsEngine = mock(QueueStatsEngine.class);
+        when(statsEngine.snapshot()).thenReturn(Map.of());
+        List<Long> enqueued = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            enqueued.add((Long) ((Map<String, Object>) invocation.getArgument(0)).get("seq"));
+            return null;
+        }).when(handler).broadcast(any());
+        QueueEventBroadcaster broadcaster = new QueueEventBroadcaster(handler, statsEngine);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            long id = i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                broadcaster.onQueueEvent(new PackageQueueEvent(PackageQueueEvent.Type.ENTERED, id, "CG" + id,
+                        "RTS", "RUA-01", null, "P", 250, LocalDateTime.now()));
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert: cada evento gera delta + stats_changed, sem buracos nem inversões
+        assertEquals(400, enqueued.size());
+        for (int i = 0; i < enqueued.size(); i++) {
+            assertEquals(i + 1L, enqueued.get(i));
+        }
+        assertEquals(400, broadcaster.currentSeq());
+    }
+}
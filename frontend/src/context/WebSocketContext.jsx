@@ -1,5 +1,5 @@
 // src/context/WebSocketContext.jsx
-import React, { createContext, useState, useEffect, useContext, useMemo } from 'react';
+import React, { createContext, useState, useEffect, useContext, useMemo, useRef, useCallback } from 'react';
 import { useAuth } from './AuthContext';
 
 const WebSocketContext = createContext();
@@ -8,11 +8,21 @@ export const WebSocketProvider = ({ children }) => {
     const { token, user, isGuest } = useAuth();
     const [onlineUsers, setOnlineUsers] = useState([]);
     const [isConnected, setIsConnected] = useState(false);
+    // Ouvintes dos deltas da fila (package_entered, package_exited, package_moved, stats_changed)
+    const queueListeners = useRef(new Set());
+
+    const subscribeQueue = useCallback((listener) => {
+        queueListeners.current.add(listener);
+        return () => queueListeners.current.delete(listener);
+    }, []);
 
     useEffect(() => {
         let ws = null;
+        let reconnectTimer = null;
+        let attempts = 0;
+        let closedByUs = false;
 
-        if (token && !isGuest) {
+        const connect = () => {
             const baseURL = import.meta.env.VITE_API_URL || 'http://localhost:8080';
             const wsURL = baseURL.replace(/^http/, 'ws');
             const finalWsUrl = `${wsURL}/api/ws?token=${token}`;
@@ -20,16 +30,30 @@ export const WebSocketProvider = ({ children }) => {
             ws = new WebSocket(finalWsUrl);
 
             ws.onopen = () => {
+                attempts = 0;
                 setIsConnected(true);
             };
 
             ws.onmessage = (event) => {
                 try {
                     const message = JSON.parse(event.data);
+                    const seesPresence = user && (user.role === 'admin' || user.role === 'leader');
                     if (message.type === 'online_users') {
-                        if (user && (user.role === 'admin' || user.role === 'leader')) {
-                            setOnlineUsers(message.data || []);
+                        // Lista completa: só ao conectar
+                        if (seesPresence) setOnlineUsers(message.data || []);
+                    } else if (message.type === 'user_online') {
+                        // Deltas agrupados pelo servidor (substitui quem já estiver na lista)
+                        if (seesPresence) {
+                            const ids = new Set(message.data.map(u => u.id));
+                            setOnlineUsers(prev => [...prev.filter(u => !ids.has(u.id)), ...message.data]);
                         }
+                    } else if (message.type === 'user_offline') {
+                        if (seesPresence) {
+                            const ids = new Set(message.data);
+                            setOnlineUsers(prev => prev.filter(u => !ids.has(u.id)));
+                        }
+                    } else if (message.type?.startsWith('package_') || message.type === 'stats_changed') {
+                        queueListeners.current.forEach(listener => listener(message));
                     }
                 } catch (err) {
                     // Falha silenciosa no parse para não poluir o console
@@ -40,17 +64,29 @@ export const WebSocketProvider = ({ children }) => {
             ws.onclose = () => {
                 setIsConnected(false);
                 setOnlineUsers([]);
+                // O servidor desconecta clientes que ficam para trás: reconecta com backoff
+                // (ao reconectar, a fila se ressincroniza pela API)
+                if (!closedByUs) {
+                    const delay = Math.min(30000, 1000 * 2 ** attempts++);
+                    reconnectTimer = setTimeout(connect, delay);
+                }
             };
-            
+
             ws.onerror = () => {
                 setIsConnected(false);
             };
+        };
+
+        if (token && !isGuest) {
+            connect();
         } else {
             setOnlineUsers([]);
             setIsConnected(false);
         }
 
         return () => {
+            closedByUs = true;
+            clearTimeout(reconnectTimer);
             if (ws && (ws.readyState === WebSocket.OPEN || ws.readyState === WebSocket.CONNECTING)) {
                 ws.close();
             }
@@ -59,8 +95,9 @@ export const WebSocketProvider = ({ children }) => {
 
     const value = useMemo(() => ({
         onlineUsers,
-        isConnected
-    }), [onlineUsers, isConnected]);
+        isConnected,
+        subscribeQueue
+    }), [onlineUsers, isConnected, subscribeQueue]);
 
     return (
         <WebSocketContext.Provider value={value}>
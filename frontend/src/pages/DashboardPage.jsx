@@ -1,7 +1,8 @@
 // src/pages/DashboardPage.jsx
-import React, { useState, useEffect, useCallback, useMemo } from 'react';
+import React, { useState, useEffect, useCallback, useMemo, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { useAuth } from '../context/AuthContext';
+import { useWebSocket } from '../context/WebSocketContext';
 import api from '../services/api';
 
 import EntryModal from '../components/EntryModal';
@@ -19,6 +20,11 @@ const formatDuration = (seconds) => {
 
 function DashboardPage() {
     const { user, logout, hasPermission, isGuest } = useAuth();
+    const { isConnected, subscribeQueue } = useWebSocket();
+    const lastSeq = useRef(null);
+    // Último seq contido em cada snapshot REST e deltas recebidos durante a carga
+    const snapshotSeq = useRef({ queue: 0, stats: 0 });
+    const pendingDeltas = useRef(null);
     const navigate = useNavigate();
 
     // Estados de Dados (Agora únicos, vindos da API)
@@ -41,8 +47,52 @@ function DashboardPage() {
     const [syncedTime, setSyncedTime] = useState(new Date().getTime());
     const [filterBuffer, setFilterBuffer] = useState('ALL');
 
+    const applyStats = useCallback((stats) => {
+        setBacklog(stats.backlogCount || 0);
+        setBacklogValue(stats.backlogValue || 0);
+        setBufferCounts(stats.counts || { RTS: 0, EHA: 0, SAL: 0 });
+        setBufferValues(stats.values || { RTS: 0, EHA: 0, SAL: 0 });
+        setBufferAvgTimes(stats.avgTimes || { RTS: 0.0, EHA: 0.0 });
+    }, []);
+
+    // Aplica um delta do WebSocket. Retorna false se há buraco na sequência (precisa recarregar)
+    const applyDelta = useCallback((message) => {
+        // Já contido nos snapshots REST (X-Queue-Seq) ou repetido
+        if (lastSeq.current !== null && message.seq <= lastSeq.current) return true;
+        // Buraco na sequência (mensagem perdida)
+        if (lastSeq.current !== null && message.seq !== lastSeq.current + 1) return false;
+        lastSeq.current = message.seq;
+        const item = message.data;
+
+        switch (message.type) {
+            case 'package_entered':
+                if (message.seq <= snapshotSeq.current.queue) break;
+                setQueue(prev => [...prev.filter(p => p.id !== item.id), item]
+                    .sort((a, b) => new Date(a.entryTimestamp) - new Date(b.entryTimestamp)));
+                break;
+            case 'package_exited':
+                if (message.seq <= snapshotSeq.current.queue) break;
+                setQueue(prev => prev.filter(p => p.id !== item.id));
+                break;
+            case 'package_moved':
+                if (message.seq <= snapshotSeq.current.queue) break;
+                setQueue(prev => prev.map(p => (p.id === item.id ? { ...p, rua: item.rua } : p)));
+                break;
+            case 'stats_changed':
+                if (message.seq <= snapshotSeq.current.stats) break;
+                applyStats(item);
+                break;
+            default:
+                break;
+        }
+        return true;
+    }, [applyStats]);
+
     // Função para carregar dados
-const loadData = useCallback(async () => {
+    const loadData = useCallback(async () => {
+        // Já existe uma carga em andamento: os deltas estão sendo guardados para ela
+        if (pendingDeltas.current !== null) return;
+        pendingDeltas.current = [];
         try {
             // --- CORREÇÃO: Usar as mesmas rotas da API para todos (já liberadas no SecurityConfig) ---
             const queueEndpoint = '/api/packages'; 
@@ -54,20 +104,24 @@ const loadData = useCallback(async () => {
             ]);
 
             setQueue(queueRes.data || []);
-            
-            const stats = statsRes.data;
-            setBacklog(stats.backlogCount || 0);
-            setBacklogValue(stats.backlogValue || 0);
-            setBufferCounts(stats.counts || { RTS: 0, EHA: 0, SAL: 0 });
-            setBufferValues(stats.values || { RTS: 0, EHA: 0, SAL: 0 });
-            setBufferAvgTimes(stats.avgTimes || { RTS: 0.0, EHA: 0.0 });
-
+            applyStats(statsRes.data);
+            // Cada snapshot informa o último seq de delta que já contém
+            const queueSeq = Number(queueRes.headers['x-queue-seq'] ?? 0);
+            const statsSeq = Number(statsRes.headers['x-queue-seq'] ?? 0);
+            snapshotSeq.current = { queue: queueSeq, stats: statsSeq };
+            lastSeq.current = Math.min(queueSeq, statsSeq);
         } catch (error) {
             console.error("Erro ao carregar dashboard:", error);
+            lastSeq.current = null;
         } finally {
             setLoading(false);
         }
-    }, []);
+
+        // Deltas que chegaram durante a carga: aplica só os mais novos que os snapshots
+        const buffered = pendingDeltas.current;
+        pendingDeltas.current = null;
+        if (!buffered.every(applyDelta)) loadData();
+    }, [applyStats, applyDelta]);
 
     // Sincronizar Tempo
     useEffect(() => {
@@ -82,6 +136,25 @@ const loadData = useCallback(async () => {
         loadData();
     }, [loadData]);
 
+    // A cada (re)conexão do WebSocket: deltas podem ter se perdido e o seq recomeça se o
+    // servidor reiniciou, então ressincroniza pelo snapshot REST
+    useEffect(() => {
+        if (isConnected) loadData();
+    }, [isConnected, loadData]);
+
+    // Deltas da fila via WebSocket: aplica o patch em vez de recarregar tudo
+    useEffect(() => {
+        if (!subscribeQueue) return undefined;
+        return subscribeQueue((message) => {
+            // Carga REST em andamento: guarda para aplicar sobre o snapshot
+            if (pendingDeltas.current !== null) {
+                pendingDeltas.current.push(message);
+                return;
+            }
+            if (!applyDelta(message)) loadData();
+        });
+    }, [subscribeQueue, loadData, applyDelta]);
+
     // Relógio
     useEffect(() => {
         const interval = setInterval(() => {
@@ -118,7 +191,8 @@ const loadData = useCallback(async () => {
     
     // Atualiza dados após ação bem sucedida
     const handleSuccess = () => {
-        loadData();
+        // Conectado ao WebSocket, o delta chega sozinho
+        if (!isConnected) loadData();
     };
 
     if (loading) return <p className="loading-message">A carregar dados...</p>;
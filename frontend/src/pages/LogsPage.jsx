@@ -8,9 +8,13 @@ const formatTimestamp = (timestamp) => {
     return new Date(timestamp).toLocaleString('pt-BR');
 };
 
+const PAGE_SIZE = 100;
+
 function LogsPage() {
     const [logs, setLogs] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
     const [loading, setLoading] = useState(true);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [error, setError] = useState('');
     const navigate = useNavigate();
 
@@ -18,30 +22,37 @@ function LogsPage() {
         username: '',
         fullname: '',
         action: '',
+        details: '',
         startDate: '',
         endDate: ''
     });
 
-    const fetchLogs = useCallback(async () => {
-        setLoading(true);
+    // Paginação por cursor: sem cursor recarrega do início, com cursor acrescenta a próxima página
+    const fetchLogs = useCallback(async (cursor = null) => {
+        if (cursor) setLoadingMore(true); else setLoading(true);
         setError(''); // Limpa erros anteriores
         try {
             const params = new URLSearchParams();
             if (filters.username) params.append('username', filters.username);
             if (filters.fullname) params.append('fullname', filters.fullname);
             if (filters.action) params.append('action', filters.action);
+            if (filters.details) params.append('details', filters.details);
             if (filters.startDate) params.append('startDate', filters.startDate);
             if (filters.endDate) params.append('endDate', filters.endDate);
+            params.append('size', PAGE_SIZE);
+            if (cursor) params.append('cursor', cursor);
 
-            const response = await api.get(`/api/management/logs?${params.toString()}`);
-            
-            setLogs(response.data || []); 
+            const response = await api.get(`/api/management/logs/page?${params.toString()}`);
+            const items = response.data?.items || [];
+
+            setLogs(prev => (cursor ? [...prev, ...items] : items));
+            setNextCursor(response.data?.nextCursor || null);
             
         } catch (err) {
             setError('Falha ao carregar logs. Verifique sua conexão ou permissões.');
             console.error(err);
         } finally {
-            setLoading(false);
+            if (cursor) setLoadingMore(false); else setLoading(false);
         }
     }, [filters]);
 
@@ -55,7 +66,7 @@ function LogsPage() {
     };
 
     const clearFilters = () => {
-        setFilters({ fullname: '', username: '', action: '', startDate: '', endDate: '' });
+        setFilters({ fullname: '', username: '', action: '', details: '', startDate: '', endDate: '' });
     };
 
     return (
@@ -100,6 +111,17 @@ function LogsPage() {
                         <option value="MOVIMENTACAO">Movimentação</option>
                     </select>
                 </div>
+                <div className="input-with-label">
+                    <label htmlFor="details">Filtrar por detalhes</label>
+                    <input
+                        id="details"
+                        type="text"
+                        name="details"
+                        placeholder="Ex: tracking ID..."
+                        value={filters.details}
+                        onChange={handleFilterChange}
+                    />
+                </div>
                 <div className="input-with-label">
                     <label htmlFor="startDate">Data de Início</label>
                     <input
@@ -159,6 +181,12 @@ function LogsPage() {
                     </tbody>
                 </table>
             </div>
+
+            {!loading && nextCursor && (
+                <button onClick={() => fetchLogs(nextCursor)} className="clear-filters-button" disabled={loadingMore}>
+                    {loadingMore ? 'A carregar...' : 'Carregar mais'}
+                </button>
+            )}
         </div>
     );
 }